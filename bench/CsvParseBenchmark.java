@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compares the regex split the analyzer used to parse rows with {@link CourseCsvParser}, which parses UTF-8
+ * bytes straight into a {@link CourseTable} (dictionary encoding included, which the regex path leaves to a
+ * later {@code CourseTable.of}).
+ * Usage: {@code java CsvParseBenchmark [scale] [rounds]}; {@code resources/local.csv} is repeated {@code scale} times.
+ */
+public class CsvParseBenchmark {
+    private static final String SPLIT_REGEX = ",(?=([^\\\"]*\\\"[^\\\"]*\\\")*[^\\\"]*$)";
+    private static volatile int sink;
+
+    public static void main(String[] args) throws IOException {
+        int scale = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<String> rows = Files.readAllLines(Paths.get("resources", "local.csv"), StandardCharsets.UTF_8);
+        rows = rows.subList(1, rows.size());
+        List<String> lines = new ArrayList<>(rows.size() * scale);
+        for (int i = 0; i < scale; i++) {
+            lines.addAll(rows);
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        System.out.printf("%d rows, %d rounds%n", lines.size(), rounds);
+        for (int round = 0; round < rounds; round++) {
+            long regexNanos = time(() -> parseWithRegex(lines));
+            long bytesNanos = time(() -> parseBytes(bytes));
+            System.out.printf("round %d: regex %.0f rows/s, bytes %.0f rows/s (x%.1f)%n",
+                    round, rowsPerSecond(lines.size(), regexNanos), rowsPerSecond(lines.size(), bytesNanos),
+                    (double) regexNanos / bytesNanos);
+        }
+    }
+
+    static int parseWithRegex(List<String> lines) {
+        int checksum = 0;
+        for (String line : lines) {
+            String[] info = line.split(SPLIT_REGEX, -1);
+            Course course = new Course(info[0], info[1], new Date(info[2]), unquote(info[3]), unquote(info[4]),
+                    unquote(info[5]), Integer.parseInt(info[6]), Integer.parseInt(info[7]),
+                    Integer.parseInt(info[8]), Integer.parseInt(info[9]), Integer.parseInt(info[10]),
+                    Double.parseDouble(info[11]), Double.parseDouble(info[12]), Double.parseDouble(info[13]),
+                    Double.parseDouble(info[14]), Double.parseDouble(info[15]), Double.parseDouble(info[16]),
+                    Double.parseDouble(info[17]), Double.parseDouble(info[18]), Double.parseDouble(info[19]),
+                    Double.parseDouble(info[20]), Double.parseDouble(info[21]), Double.parseDouble(info[22]));
+            checksum += course.getParticipants();
+        }
+        return checksum;
+    }
+
+    static int parseBytes(ByteBuffer bytes) {
+        CourseTable table = new CourseTable();
+        new CourseCsvParser(bytes, 0, bytes.limit()).parseInto(table);
+        int checksum = 0;
+        for (int row = 0; row < table.size; row++) {
+            checksum += table.participants[row];
+        }
+        return checksum;
+    }
+
+    private static String unquote(String field) {
+        if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+            return field.substring(1, field.length() - 1);
+        }
+        return field;
+    }
+
+    private static long time(Parser parser) {
+        long start = System.nanoTime();
+        sink = parser.parse();
+        return System.nanoTime() - start;
+    }
+
+    private static double rowsPerSecond(int rows, long nanos) {
+        return rows * 1e9 / nanos;
+    }
+
+    private interface Parser {
+        int parse();
+    }
+}
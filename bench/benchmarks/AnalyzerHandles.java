@@ -0,0 +1,59 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code OnlineCoursesAnalyzer} lives in the default package, which named packages cannot import, and JMH
+ * refuses benchmarks in the default package. The analyzer is therefore reached through method handles
+ * typed on {@code Object}; held in static finals they are inlined like direct calls.
+ */
+final class AnalyzerHandles {
+    static final MethodHandle NEW;
+    static final MethodHandle GET_PTCP_COUNT_BY_INST;
+    static final MethodHandle GET_PTCP_COUNT_BY_INST_AND_SUBJECT;
+    static final MethodHandle GET_COURSE_LIST_OF_INSTRUCTOR;
+    static final MethodHandle GET_COURSES;
+    static final MethodHandle SEARCH_COURSES;
+    static final MethodHandle RECOMMEND_COURSES;
+    static final MethodHandle INVALIDATE_CACHE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> analyzer = Class.forName("OnlineCoursesAnalyzer");
+            NEW = lookup.findConstructor(analyzer, MethodType.methodType(void.class, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+            GET_PTCP_COUNT_BY_INST = query(lookup, analyzer, "getPtcpCountByInst", Map.class);
+            GET_PTCP_COUNT_BY_INST_AND_SUBJECT = query(lookup, analyzer, "getPtcpCountByInstAndSubject", Map.class);
+            GET_COURSE_LIST_OF_INSTRUCTOR = query(lookup, analyzer, "getCourseListOfInstructor", Map.class);
+            GET_COURSES = query(lookup, analyzer, "getCourses", List.class, int.class, String.class);
+            SEARCH_COURSES = query(lookup, analyzer, "searchCourses", List.class,
+                    String.class, double.class, double.class);
+            RECOMMEND_COURSES = query(lookup, analyzer, "recommendCourses", List.class,
+                    int.class, int.class, int.class);
+            Field cache = analyzer.getDeclaredField("cache");
+            cache.setAccessible(true);
+            Method invalidateAll = cache.getType().getDeclaredMethod("invalidateAll");
+            invalidateAll.setAccessible(true);
+            INVALIDATE_CACHE = MethodHandles.filterArguments(lookup.unreflect(invalidateAll), 0,
+                    lookup.unreflectGetter(cache)).asType(MethodType.methodType(void.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private AnalyzerHandles() {
+    }
+
+    private static MethodHandle query(MethodHandles.Lookup lookup, Class<?> analyzer, String name,
+                                      Class<?> returnType, Class<?>... argTypes) throws ReflectiveOperationException {
+        MethodHandle handle = lookup.findVirtual(analyzer, name, MethodType.methodType(returnType, argTypes));
+        return handle.asType(handle.type().changeParameterType(0, Object.class));
+    }
+}
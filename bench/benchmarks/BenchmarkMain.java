@@ -0,0 +1,25 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler attached, which adds allocation rate per operation to every
+ * result. Usage: {@code java BenchmarkMain [regex] [rows]}, e.g. {@code BenchmarkMain Query 1000000}.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(args.length > 0 ? args[0] : "Benchmark")
+                .addProfiler(GCProfiler.class);
+        if (args.length > 1) {
+            options.param("rows", args[1].split(","));
+        }
+        Options built = options.build();
+        new Runner(built).run();
+    }
+}
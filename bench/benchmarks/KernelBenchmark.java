@@ -0,0 +1,111 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The column kernels behind {@code searchCourses} and {@code recommendCourses}, scalar against the Vector
+ * API implementation. The fork adds {@code jdk.incubator.vector}; {@code kernels=preferred} falls back to
+ * scalar if the vector classes were not compiled in. Query-level numbers come from {@link QueryBenchmark}
+ * run with and without {@code -Dcourses.vector=false}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+    private static final MethodHandle SCALAR;
+    private static final MethodHandle PREFERRED;
+    private static final MethodHandle RANGE_MASK;
+    private static final MethodHandle SQUARED_DISTANCES;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> kernels = Class.forName("CourseKernels");
+            SCALAR = unreflect(lookup, kernels, "scalar");
+            PREFERRED = unreflect(lookup, kernels, "get");
+            RANGE_MASK = unreflect(lookup, kernels, "rangeMask", double[].class, double.class, double[].class,
+                    double.class, int.class, long[].class);
+            SQUARED_DISTANCES = unreflect(lookup, kernels, "squaredDistances", double[].class, double[].class,
+                    double[].class, double.class, double.class, double.class, int.class, double[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"100000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"scalar", "preferred"})
+    String kernels;
+
+    Object implementation;
+    double[] first;
+    double[] second;
+    double[] third;
+    long[] mask;
+    double[] scores;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        implementation = kernels.equals("scalar") ? (Object) SCALAR.invokeExact() : (Object) PREFERRED.invokeExact();
+        Random random = new Random(42);
+        first = new double[rows];
+        second = new double[rows];
+        third = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            first[row] = random.nextDouble() * 100;
+            second[row] = random.nextDouble() * 500;
+            third[row] = random.nextDouble() * 100;
+        }
+        mask = new long[(rows + 63) >>> 6];
+        scores = new double[rows];
+    }
+
+    @Benchmark
+    public long[] rangeMask() throws Throwable {
+        RANGE_MASK.invokeExact(implementation, first, 20.0, second, 400.0, rows, mask);
+        return mask;
+    }
+
+    @Benchmark
+    public double[] squaredDistances() throws Throwable {
+        SQUARED_DISTANCES.invokeExact(implementation, first, second, third, 30.0, 100.0, 0.0, rows, scores);
+        return scores;
+    }
+
+    private static MethodHandle unreflect(MethodHandles.Lookup lookup, Class<?> kernels, String name,
+                                          Class<?>... argTypes) throws ReflectiveOperationException {
+        Method method = kernels.getDeclaredMethod(name, argTypes);
+        method.setAccessible(true);
+        MethodHandle handle = lookup.unreflect(method);
+        MethodType type = handle.type();
+        if (type.returnType() != void.class) {
+            type = type.changeReturnType(Object.class);
+        }
+        if (type.parameterCount() > argTypes.length) {
+            type = type.changeParameterType(0, Object.class);
+        }
+        return handle.asType(type);
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and sampled latency of the six analyzer queries. With {@code cached=false} each invocation
+ * clears the result cache itself before querying, so the numbers reflect the query plus a clear of the
+ * cache's two maps; an invocation-level {@code @Setup} would cost more than the cached queries it surrounds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class QueryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    int rows;
+
+    @Param({"false", "true"})
+    boolean cached;
+
+    Object analyzer;
+
+    @Setup(Level.Trial)
+    public void load() throws Throwable {
+        analyzer = (Object) AnalyzerHandles.NEW.invokeExact(SyntheticCourses.csv(rows).toString());
+    }
+
+    /**
+     * The analyzer to query, with its cache cleared first unless {@code cached}.
+     */
+    private Object analyzer() throws Throwable {
+        if (!cached) {
+            AnalyzerHandles.INVALIDATE_CACHE.invokeExact(analyzer);
+        }
+        return analyzer;
+    }
+
+    @Benchmark
+    public Map<?, ?> ptcpCountByInst() throws Throwable {
+        return (Map<?, ?>) AnalyzerHandles.GET_PTCP_COUNT_BY_INST.invokeExact(analyzer());
+    }
+
+    @Benchmark
+    public Map<?, ?> ptcpCountByInstAndSubject() throws Throwable {
+        return (Map<?, ?>) AnalyzerHandles.GET_PTCP_COUNT_BY_INST_AND_SUBJECT.invokeExact(analyzer());
+    }
+
+    @Benchmark
+    public Map<?, ?> courseListOfInstructor() throws Throwable {
+        return (Map<?, ?>) AnalyzerHandles.GET_COURSE_LIST_OF_INSTRUCTOR.invokeExact(analyzer());
+    }
+
+    @Benchmark
+    public List<?> coursesByHours() throws Throwable {
+        return (List<?>) AnalyzerHandles.GET_COURSES.invokeExact(analyzer(), 10, "hours");
+    }
+
+    @Benchmark
+    public List<?> coursesByParticipants() throws Throwable {
+        return (List<?>) AnalyzerHandles.GET_COURSES.invokeExact(analyzer(), 50, "participants");
+    }
+
+    @Benchmark
+    public List<?> searchCourses() throws Throwable {
+        return (List<?>) AnalyzerHandles.SEARCH_COURSES.invokeExact(analyzer(), "science", 25.0, 400.0);
+    }
+
+    @Benchmark
+    public List<?> recommendCourses() throws Throwable {
+        return (List<?>) AnalyzerHandles.RECOMMEND_COURSES.invokeExact(analyzer(), 30, 0, 1);
+    }
+}
@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates course CSVs with the same columns as {@code resources/local.csv}. About one course number per
+ * ten rows and a shared pool of instructors keep the dictionary sizes realistic as the row count grows.
+ * Files are cached under {@code java.io.tmpdir} so repeated benchmark runs reuse them.
+ */
+public final class SyntheticCourses {
+    static final String HEADER = "Institution,Course Number,Launch Date,Course Title,Instructors,Course Subject,"
+            + "Year,Honor Code Certificates,Participants (Course Content Accessed),"
+            + "Audited (> 50% Course Content Accessed),Certified,% Audited,% Certified,"
+            + "% Certified of > 50% Course Content Accessed,% Played Video,% Posted in Forum,"
+            + "% Grade Higher Than Zero,Total Course Hours (Thousands),Median Hours for Certification,Median Age,"
+            + "% Male,% Female,% Bachelor's Degree or Higher";
+    private static final String[] INSTITUTIONS = {"MITx", "HarvardX"};
+    private static final String[] SUBJECTS = {
+        "\"Science, Technology, Engineering, and Mathematics\"",
+        "Computer Science",
+        "\"Government, Health, and Social Science\"",
+        "\"Humanities, History, Design, Religion, and Education\""
+    };
+    private static final String[] WORDS = {
+        "Introduction", "Circuits", "Electronics", "Biology", "Health", "China", "Justice", "Data", "Probability",
+        "Design", "Energy", "Poetry", "Statistics", "Systems", "Heroes", "Networks", "Policy", "Chemistry"
+    };
+
+    private SyntheticCourses() {
+    }
+
+    public static Path csv(int rows) throws IOException {
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "online-courses-bench");
+        Path file = dir.resolve("courses-" + rows + ".csv");
+        if (!Files.exists(file)) {
+            Files.createDirectories(dir);
+            Path partial = Files.createTempFile(dir, "courses-" + rows, ".tmp");
+            write(partial, rows, 42);
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return file;
+    }
+
+    public static void write(Path file, int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        int numbers = Math.max(1, rows / 10);
+        int instructors = Math.max(4, rows / 20);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            StringBuilder line = new StringBuilder(256);
+            for (int i = 0; i < rows; i++) {
+                int number = random.nextInt(numbers);
+                line.setLength(0);
+                line.append(INSTITUTIONS[number % INSTITUTIONS.length]).append(',')
+                        .append(number % 7).append('.').append(number).append("x,")
+                        .append(String.format(Locale.ROOT, "%02d/%02d/%d", 1 + random.nextInt(12),
+                                1 + random.nextInt(28), 2012 + random.nextInt(5))).append(',')
+                        .append(title(number, random)).append(',')
+                        .append(instructorList(random, instructors)).append(',')
+                        .append(SUBJECTS[number % SUBJECTS.length]).append(',')
+                        .append(1 + random.nextInt(4)).append(',')
+                        .append(random.nextInt(2)).append(',');
+                int participants = 100 + random.nextInt(100_000);
+                int audited = random.nextInt(participants);
+                int certified = random.nextInt(audited + 1);
+                line.append(participants).append(',').append(audited).append(',').append(certified);
+                for (int column = 0; column < 12; column++) {
+                    line.append(',').append(decimal(random, column == 6 ? 1000 : 100));
+                }
+                out.write(line.toString());
+                out.newLine();
+            }
+        }
+    }
+
+    private static String title(int number, Random random) {
+        String title = WORDS[number % WORDS.length] + " " + WORDS[(number / WORDS.length) % WORDS.length]
+                + " " + number;
+        if (random.nextInt(4) == 0) {
+            return "\"" + title + ", Part " + (1 + random.nextInt(3)) + "\"";
+        }
+        return title;
+    }
+
+    private static String instructorList(Random random, int instructors) {
+        int count = 1 + random.nextInt(3);
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                list.append(", ");
+            }
+            list.append("Instructor ").append(random.nextInt(instructors));
+        }
+        return count == 1 ? list.toString() : "\"" + list + "\"";
+    }
+
+    private static String decimal(Random random, int max) {
+        return String.format(Locale.ROOT, "%.2f", random.nextDouble() * max);
+    }
+}
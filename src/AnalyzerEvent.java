@@ -0,0 +1,30 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event spanning one {@link AnalyzerMetrics.Operation}, committed when {@link AnalyzerMetrics} has JFR
+ * events switched on and a recording enables {@code OnlineCoursesAnalyzer.Operation}.
+ */
+@Name("OnlineCoursesAnalyzer.Operation")
+@Label("Analyzer Operation")
+@Category("Online Courses Analyzer")
+@Description("A load step or query of an OnlineCoursesAnalyzer")
+@StackTrace(false)
+class AnalyzerEvent extends jdk.jfr.Event {
+  @Label("Operation")
+  String operation;
+
+  @Label("Rows")
+  @Description("Rows parsed or indexed, rows of the dataset a query computed its result from, or learners "
+      + "scored by a batch; -1 when a query was answered from the cache")
+  long rows = -1;
+
+  @Label("Allocated")
+  @Description("Bytes allocated by the calling thread, or -1 when allocation tracking is off")
+  @DataAmount
+  long allocatedBytes = -1;
+}
@@ -0,0 +1,248 @@
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for an analyzer: rows loaded and rejected, cache hits and misses, and a
+ * {@link LatencyHistogram} per {@link Operation}. They can be read directly, through JMX once
+ * {@link #registerMBean(String) registered}, and are pushed to {@link MetricsListener}s as operations
+ * complete.
+ *
+ * <p>Timing an operation costs two {@code nanoTime} calls and a few uncontended atomic adds. Allocation
+ * tracking (per-thread allocated bytes before and after) and JFR {@link AnalyzerEvent}s cost more and are
+ * off until switched on, which can also be done at runtime through JMX.
+ */
+public final class AnalyzerMetrics implements AnalyzerMetricsMXBean {
+
+  public enum Operation {
+    PARSE("parse"),
+    READ_SNAPSHOT("readSnapshot"),
+    INDEX("index"),
+    APPEND("append"),
+    GET_PTCP_COUNT_BY_INST("getPtcpCountByInst"),
+    GET_PTCP_COUNT_BY_INST_AND_SUBJECT("getPtcpCountByInstAndSubject"),
+    GET_COURSE_LIST_OF_INSTRUCTOR("getCourseListOfInstructor"),
+    GET_COURSES("getCourses"),
+    SEARCH_COURSES("searchCourses"),
+    SEARCH_COURSES_BATCH("searchCoursesBatch"),
+    RECOMMEND_COURSES("recommendCourses"),
+    RECOMMEND_COURSES_BATCH("recommendCoursesBatch");
+
+    private final String label;
+
+    Operation(String label) {
+      this.label = label;
+    }
+
+    public String label() {
+      return label;
+    }
+  }
+
+  private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+  private final LongAdder[] allocated = new LongAdder[Operation.values().length];
+  private final LongAdder rowsLoaded = new LongAdder();
+  private final LongAdder rowsRejected = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  final LongAdder cacheHits = new LongAdder();
+  final LongAdder cacheMisses = new LongAdder();
+  private final List<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+  private volatile boolean trackAllocations;
+  private volatile boolean jfrEvents;
+
+  public AnalyzerMetrics() {
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i] = new LatencyHistogram();
+      allocated[i] = new LongAdder();
+    }
+  }
+
+  public void addListener(MetricsListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(MetricsListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server as
+   * {@code OnlineCoursesAnalyzer:type=AnalyzerMetrics,name=<name>} and returns that name.
+   */
+  public ObjectName registerMBean(String name) throws JMException {
+    ObjectName objectName = new ObjectName("OnlineCoursesAnalyzer:type=AnalyzerMetrics,name=" + ObjectName.quote(name));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+    return objectName;
+  }
+
+  public OperationStats stats(Operation operation) {
+    int index = operation.ordinal();
+    return new OperationStats(latencies[index], allocated[index].sum());
+  }
+
+  @Override
+  public Map<String, OperationStats> getOperations() {
+    Map<String, OperationStats> operations = new LinkedHashMap<>();
+    for (Operation operation : Operation.values()) {
+      operations.put(operation.label(), stats(operation));
+    }
+    return Collections.unmodifiableMap(operations);
+  }
+
+  @Override
+  public long getRowsLoaded() {
+    return rowsLoaded.sum();
+  }
+
+  @Override
+  public long getRowsRejected() {
+    return rowsRejected.sum();
+  }
+
+  @Override
+  public long getLoadFailures() {
+    return loadFailures.sum();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return cacheHits.sum();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return cacheMisses.sum();
+  }
+
+  @Override
+  public boolean isTrackAllocations() {
+    return trackAllocations;
+  }
+
+  @Override
+  public void setTrackAllocations(boolean trackAllocations) {
+    this.trackAllocations = trackAllocations && Allocations.SUPPORTED;
+  }
+
+  @Override
+  public boolean isJfrEvents() {
+    return jfrEvents;
+  }
+
+  @Override
+  public void setJfrEvents(boolean jfrEvents) {
+    this.jfrEvents = jfrEvents;
+  }
+
+  @Override
+  public void reset() {
+    for (int i = 0; i < latencies.length; i++) {
+      latencies[i].reset();
+      allocated[i].reset();
+    }
+    rowsLoaded.reset();
+    rowsRejected.reset();
+    loadFailures.reset();
+    cacheHits.reset();
+    cacheMisses.reset();
+  }
+
+  /**
+   * Starts timing {@code operation}; closing the returned timer records it.
+   */
+  Timer start(Operation operation) {
+    return new Timer(operation);
+  }
+
+  void rowsLoaded(long rows, long rejected) {
+    rowsLoaded.add(rows);
+    rowsRejected.add(rejected);
+    for (MetricsListener listener : listeners) {
+      listener.rowsLoaded(rows, rejected);
+    }
+  }
+
+  void loadFailed() {
+    loadFailures.increment();
+  }
+
+  final class Timer implements AutoCloseable {
+    private final Operation operation;
+    private final long startNanos;
+    private final long startAllocated;
+    private final AnalyzerEvent event;
+    private long rows = -1;
+
+    private Timer(Operation operation) {
+      this.operation = operation;
+      startAllocated = trackAllocations ? Allocations.ofCurrentThread() : -1;
+      if (jfrEvents) {
+        AnalyzerEvent event = new AnalyzerEvent();
+        event.begin();
+        this.event = event;
+      } else {
+        this.event = null;
+      }
+      startNanos = System.nanoTime();
+    }
+
+    /**
+     * The number of rows the operation processed, reported with its JFR event.
+     */
+    void rows(long rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    public void close() {
+      long nanos = System.nanoTime() - startNanos;
+      long allocatedBytes = startAllocated < 0 ? -1 : Allocations.ofCurrentThread() - startAllocated;
+      int index = operation.ordinal();
+      latencies[index].record(nanos);
+      if (allocatedBytes > 0) {
+        allocated[index].add(allocatedBytes);
+      }
+      if (event != null) {
+        event.end();
+        if (event.shouldCommit()) {
+          event.operation = operation.label();
+          event.rows = rows;
+          event.allocatedBytes = allocatedBytes;
+          event.commit();
+        }
+      }
+      for (MetricsListener listener : listeners) {
+        listener.operationCompleted(operation, nanos, allocatedBytes);
+      }
+    }
+  }
+
+  /**
+   * Per-thread allocation counters of HotSpot's {@code ThreadMXBean}, looked up on first use.
+   */
+  private static final class Allocations {
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+    static final boolean SUPPORTED = THREADS != null;
+
+    static long ofCurrentThread() {
+      return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+      java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean
+          && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+        hotspot.setThreadAllocatedMemoryEnabled(true);
+        return hotspot;
+      }
+      return null;
+    }
+  }
+}
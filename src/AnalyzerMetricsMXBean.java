@@ -0,0 +1,31 @@
+import java.util.Map;
+
+/**
+ * The JMX view of {@link AnalyzerMetrics}.
+ */
+public interface AnalyzerMetricsMXBean {
+  long getRowsLoaded();
+
+  long getRowsRejected();
+
+  long getLoadFailures();
+
+  long getCacheHits();
+
+  long getCacheMisses();
+
+  /**
+   * Statistics per operation, keyed by its label, e.g. {@code getCourses} or {@code parse}.
+   */
+  Map<String, OperationStats> getOperations();
+
+  boolean isTrackAllocations();
+
+  void setTrackAllocations(boolean trackAllocations);
+
+  boolean isJfrEvents();
+
+  void setJfrEvents(boolean jfrEvents);
+
+  void reset();
+}
@@ -0,0 +1,382 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An embedded HTTP server on the JDK's {@code com.sun.net.httpserver} that answers the six analyzer queries
+ * as JSON. {@code GET} endpoints take the query's parameters by name in the query string:
+ *
+ * <pre>
+ * /ptcpCountByInst
+ * /ptcpCountByInstAndSubject
+ * /courseListOfInstructor
+ * /courses?topK=10&amp;by=hours
+ * /searchCourses?courseSubject=computer&amp;percentAudited=20&amp;totalCourseHours=700
+ * /recommendCourses?age=25&amp;gender=1&amp;isBachelorOrHigher=1
+ * </pre>
+ *
+ * <p>{@code POST /batch} takes {@code {"searchCourses": [{...}, ...], "recommendCourses": [{...}, ...]}}
+ * with the same parameter names and answers every parameter set, in the same order. The searches run
+ * against one dataset in a single pass over its rows via {@link OnlineCoursesAnalyzer#searchCoursesBatch},
+ * the recommendations through {@link OnlineCoursesAnalyzer#recommendCoursesBatch}.
+ *
+ * <p>Responses are written through a {@link JsonWriter} as they are produced. Exchanges run on virtual
+ * threads where the JDK has them and on a fixed pool of two threads per processor otherwise.
+ */
+public final class AnalyzerServer implements AutoCloseable {
+  private static final int MAX_BATCH_BYTES = 16 << 20;
+
+  static {
+    // The JDK server writes headers and body separately, so with Nagle's algorithm on, the body waits for
+    // the client's delayed ACK: about 40 ms per response on a keep-alive connection. Read once, when the
+    // first server starts, and left alone if set explicitly.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  private final OnlineCoursesAnalyzer analyzer;
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private AnalyzerServer(OnlineCoursesAnalyzer analyzer, HttpServer server, ExecutorService executor) {
+    this.analyzer = analyzer;
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts serving {@code analyzer} on {@code port} of every interface; port 0 picks a free one.
+   */
+  public static AnalyzerServer start(OnlineCoursesAnalyzer analyzer, int port) throws IOException {
+    return start(analyzer, new InetSocketAddress(port));
+  }
+
+  public static AnalyzerServer start(OnlineCoursesAnalyzer analyzer, InetSocketAddress address) throws IOException {
+    HttpServer server = HttpServer.create(address, 1024);
+    ExecutorService executor = newExecutor();
+    AnalyzerServer analyzerServer = new AnalyzerServer(analyzer, server, executor);
+    analyzerServer.route("/ptcpCountByInst", (exchange, json) -> json.counts(analyzer.getPtcpCountByInst()));
+    analyzerServer.route("/ptcpCountByInstAndSubject",
+        (exchange, json) -> json.counts(analyzer.getPtcpCountByInstAndSubject()));
+    analyzerServer.route("/courseListOfInstructor", (exchange, json) -> {
+      json.beginObject();
+      for (Map.Entry<String, List<List<String>>> entry : analyzer.getCourseListOfInstructor().entrySet()) {
+        json.name(entry.getKey()).beginArray();
+        for (List<String> titles : entry.getValue()) {
+          json.strings(titles);
+        }
+        json.endArray();
+      }
+      json.endObject();
+    });
+    analyzerServer.route("/courses", (exchange, json) -> {
+      Map<String, String> query = query(exchange);
+      json.strings(analyzer.getCourses(intParameter(query, "topK"), parameter(query, "by")));
+    });
+    analyzerServer.route("/searchCourses", (exchange, json) -> {
+      Map<String, String> query = query(exchange);
+      json.strings(analyzer.searchCourses(parameter(query, "courseSubject"),
+          doubleParameter(query, "percentAudited"), doubleParameter(query, "totalCourseHours")));
+    });
+    analyzerServer.route("/recommendCourses", (exchange, json) -> {
+      Map<String, String> query = query(exchange);
+      json.strings(analyzer.recommendCourses(intParameter(query, "age"), intParameter(query, "gender"),
+          intParameter(query, "isBachelorOrHigher")));
+    });
+    analyzerServer.route("/batch", analyzerServer::batch);
+    server.setExecutor(executor);
+    server.start();
+    return analyzerServer;
+  }
+
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  /**
+   * Stops accepting requests, waits up to a second for exchanges in progress, and shuts the executor down.
+   */
+  @Override
+  public void close() {
+    server.stop(1);
+    executor.shutdown();
+  }
+
+  private void route(String path, Endpoint endpoint) {
+    boolean post = path.equals("/batch");
+    server.createContext(path, exchange -> {
+      try (exchange) {
+        if (!exchange.getRequestMethod().equals(post ? "POST" : "GET")) {
+          exchange.getResponseHeaders().set("Allow", post ? "POST" : "GET");
+          error(exchange, 405, "method not allowed");
+          return;
+        }
+        if (!exchange.getRequestURI().getPath().equals(path)) {
+          error(exchange, 404, "not found");
+          return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        BufferedExchange body = new BufferedExchange(exchange);
+        try {
+          JsonWriter json = new JsonWriter(body);
+          endpoint.answer(exchange, json);
+          json.close();
+        } catch (IllegalArgumentException e) {
+          if (body.committed) {
+            throw e;
+          }
+          error(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+          // once the status line is out the exchange can only be dropped; before that, the client gets an answer
+          if (body.committed) {
+            throw e;
+          }
+          e.printStackTrace();
+          error(exchange, 500, "internal error");
+        }
+      }
+    });
+  }
+
+  private void batch(HttpExchange exchange, JsonWriter json) throws IOException {
+    Object request = JsonReader.parse(readBody(exchange));
+    if (!(request instanceof Map)) {
+      throw new IllegalArgumentException("batch must be a JSON object");
+    }
+    Map<?, ?> members = (Map<?, ?>) request;
+    List<Map<?, ?>> searches = parameterSets(members, "searchCourses");
+    List<Map<?, ?>> recommends = parameterSets(members, "recommendCourses");
+
+    String[] subjects = new String[searches.size()];
+    double[] audited = new double[searches.size()];
+    double[] hours = new double[searches.size()];
+    for (int i = 0; i < subjects.length; i++) {
+      subjects[i] = string(searches.get(i), "courseSubject");
+      audited[i] = number(searches.get(i), "percentAudited");
+      hours[i] = number(searches.get(i), "totalCourseHours");
+    }
+    List<List<String>> searchResults = analyzer.searchCoursesBatch(subjects, audited, hours);
+    int[] ages = new int[recommends.size()];
+    int[] genders = new int[recommends.size()];
+    int[] degrees = new int[recommends.size()];
+    for (int i = 0; i < ages.length; i++) {
+      ages[i] = integer(recommends.get(i), "age");
+      genders[i] = integer(recommends.get(i), "gender");
+      degrees[i] = integer(recommends.get(i), "isBachelorOrHigher");
+    }
+    List<List<String>> recommendResults = analyzer.recommendCoursesBatch(ages, genders, degrees);
+
+    json.beginObject();
+    json.name("searchCourses").beginArray();
+    for (List<String> titles : searchResults) {
+      json.strings(titles);
+    }
+    json.endArray();
+    json.name("recommendCourses").beginArray();
+    for (List<String> titles : recommendResults) {
+      json.strings(titles);
+    }
+    json.endArray();
+    json.endObject();
+  }
+
+  private static List<Map<?, ?>> parameterSets(Map<?, ?> batch, String name) {
+    Object sets = batch.get(name);
+    if (sets == null) {
+      return List.of();
+    }
+    if (!(sets instanceof List)) {
+      throw new IllegalArgumentException(name + " must be an array");
+    }
+    List<Map<?, ?>> result = new ArrayList<>();
+    for (Object set : (List<?>) sets) {
+      if (!(set instanceof Map)) {
+        throw new IllegalArgumentException(name + " must hold parameter objects");
+      }
+      result.add((Map<?, ?>) set);
+    }
+    return result;
+  }
+
+  private static Object member(Map<?, ?> parameters, String name) {
+    Object value = parameters.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("missing parameter " + name);
+    }
+    return value;
+  }
+
+  private static double number(Map<?, ?> parameters, String name) {
+    Object value = member(parameters, name);
+    if (!(value instanceof Double)) {
+      throw new IllegalArgumentException(name + " must be a number");
+    }
+    return (Double) value;
+  }
+
+  private static int integer(Map<?, ?> parameters, String name) {
+    double value = number(parameters, name);
+    if (value != (int) value) {
+      throw new IllegalArgumentException(name + " must be an integer");
+    }
+    return (int) value;
+  }
+
+  private static String string(Map<?, ?> parameters, String name) {
+    Object value = member(parameters, name);
+    if (!(value instanceof String)) {
+      throw new IllegalArgumentException(name + " must be a string");
+    }
+    return (String) value;
+  }
+
+  private static String readBody(HttpExchange exchange) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      byte[] body = in.readNBytes(MAX_BATCH_BYTES + 1);
+      if (body.length > MAX_BATCH_BYTES) {
+        throw new IllegalArgumentException("batch larger than " + MAX_BATCH_BYTES + " bytes");
+      }
+      return new String(body, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static Map<String, String> query(HttpExchange exchange) {
+    Map<String, String> parameters = new LinkedHashMap<>();
+    String raw = exchange.getRequestURI().getRawQuery();
+    if (raw == null) {
+      return parameters;
+    }
+    for (String pair : raw.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals > 0) {
+        parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+            URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return parameters;
+  }
+
+  private static String parameter(Map<String, String> query, String name) {
+    String value = query.get(name);
+    if (value == null) {
+      throw new IllegalArgumentException("missing parameter " + name);
+    }
+    return value;
+  }
+
+  private static int intParameter(Map<String, String> query, String name) {
+    try {
+      return Integer.parseInt(parameter(query, name));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be an integer");
+    }
+  }
+
+  private static double doubleParameter(Map<String, String> query, String name) {
+    try {
+      return Double.parseDouble(parameter(query, name));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number");
+    }
+  }
+
+  private static void error(HttpExchange exchange, int status, String message) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    BufferedExchange body = new BufferedExchange(exchange);
+    body.status = status;
+    JsonWriter json = new JsonWriter(body);
+    json.beginObject().name("error").value(message).endObject();
+    json.close();
+  }
+
+  /**
+   * Virtual threads through {@code Executors.newVirtualThreadPerTaskExecutor()} when the running JDK has
+   * them, found reflectively so the class still loads on older ones.
+   */
+  static ExecutorService newExecutor() {
+    try {
+      Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) virtual.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger threads = new AtomicInteger();
+      return Executors.newFixedThreadPool(2 * Runtime.getRuntime().availableProcessors(), task -> {
+        Thread thread = new Thread(task, "courses-http-" + threads.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  private interface Endpoint {
+    void answer(HttpExchange exchange, JsonWriter json) throws IOException;
+  }
+
+  /**
+   * The response body of an exchange. The first buffer the {@link JsonWriter} hands over is held back: if
+   * the writer closes without another, the body goes out with its length, otherwise the headers are sent
+   * and the rest is chunked as it is written.
+   */
+  private static final class BufferedExchange extends OutputStream {
+    private final HttpExchange exchange;
+    private byte[] pending;
+    private OutputStream body;
+    int status = 200;
+    boolean committed;
+
+    BufferedExchange(HttpExchange exchange) {
+      this.exchange = exchange;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      if (pending == null && !committed) {
+        pending = Arrays.copyOfRange(bytes, offset, offset + length);
+        return;
+      }
+      if (!committed) {
+        committed = true;
+        exchange.sendResponseHeaders(status, 0);
+        body = exchange.getResponseBody();
+        body.write(pending);
+        pending = null;
+      }
+      body.write(bytes, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (committed) {
+        body.close();
+        return;
+      }
+      committed = true;
+      int length = pending == null ? 0 : pending.length;
+      exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+      if (length > 0) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(pending);
+        }
+      }
+    }
+  }
+}
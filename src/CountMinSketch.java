@@ -0,0 +1,74 @@
+/**
+ * Count-Min sketch over {@code long} keys with non-negative weights. An estimate never undercounts and,
+ * with probability at least {@code 1 - delta}, overcounts by at most {@code epsilon} times the total weight
+ * added, using {@code ceil(e / epsilon)} counters in each of {@code ceil(ln(1 / delta))} rows.
+ */
+final class CountMinSketch {
+  private final double epsilon;
+  private final double delta;
+  private final int width;
+  private final long[][] counts;
+  private final long[] seeds;
+  private long totalWeight;
+
+  CountMinSketch(double epsilon, double delta) {
+    if (!(epsilon > 0 && epsilon < 1 && delta > 0 && delta < 1)) {
+      throw new IllegalArgumentException("epsilon and delta must be in (0, 1): " + epsilon + ", " + delta);
+    }
+    this.epsilon = epsilon;
+    this.delta = delta;
+    width = (int) Math.ceil(Math.E / epsilon);
+    int depth = (int) Math.ceil(Math.log(1 / delta));
+    counts = new long[depth][width];
+    seeds = new long[depth];
+    for (int row = 0; row < depth; row++) {
+      seeds[row] = mix(0x9E3779B97F4A7C15L * (row + 1));
+    }
+  }
+
+  void add(long key, long weight) {
+    totalWeight += weight;
+    for (int row = 0; row < counts.length; row++) {
+      counts[row][bucket(key, row)] += weight;
+    }
+  }
+
+  long estimate(long key) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < counts.length; row++) {
+      estimate = Math.min(estimate, counts[row][bucket(key, row)]);
+    }
+    return estimate;
+  }
+
+  /**
+   * The most any estimate overcounts by, with probability {@link #confidence()}.
+   */
+  double errorBound() {
+    return epsilon * totalWeight;
+  }
+
+  double confidence() {
+    return 1 - delta;
+  }
+
+  long totalWeight() {
+    return totalWeight;
+  }
+
+  private int bucket(long key, int row) {
+    return (int) Long.remainderUnsigned(mix(key ^ seeds[row]), width);
+  }
+
+  /**
+   * The 64-bit finalizer of MurmurHash3.
+   */
+  static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,122 @@
+import java.util.Date;
+
+/**
+ * One course row, with the CSV columns as fields.
+ */
+public class Course {
+  String institution;
+  String number;
+  Date launchDate;
+  String title;
+  String instructors;
+  String subject;
+  int year;
+  int honorCode;
+  int participants;
+  int audited;
+  int certified;
+  double percentAudited;
+  double percentCertified;
+  double percentCertified50;
+  double percentVideo;
+  double percentForum;
+  double gradeHigherZero;
+  double totalHours;
+  double medianHoursCertification;
+  double medianAge;
+  double percentMale;
+  double percentFemale;
+  double percentDegree;
+
+  public Course(String institution, String number, Date launchDate,
+                String title, String instructors, String subject,
+                int year, int honorCode, int participants,
+                int audited, int certified, double percentAudited,
+                double percentCertified, double percentCertified50,
+                double percentVideo, double percentForum, double gradeHigherZero,
+                double totalHours, double medianHoursCertification,
+                double medianAge, double percentMale, double percentFemale,
+                double percentDegree) {
+    this.institution = institution;
+    this.number = number;
+    this.launchDate = launchDate;
+    this.title = title;
+    this.instructors = instructors;
+    this.subject = subject;
+    this.year = year;
+    this.honorCode = honorCode;
+    this.participants = participants;
+    this.audited = audited;
+    this.certified = certified;
+    this.percentAudited = percentAudited;
+    this.percentCertified = percentCertified;
+    this.percentCertified50 = percentCertified50;
+    this.percentVideo = percentVideo;
+    this.percentForum = percentForum;
+    this.gradeHigherZero = gradeHigherZero;
+    this.totalHours = totalHours;
+    this.medianHoursCertification = medianHoursCertification;
+    this.medianAge = medianAge;
+    this.percentMale = percentMale;
+    this.percentFemale = percentFemale;
+    this.percentDegree = percentDegree;
+  }
+
+  public String getInstitution() {
+    return institution;
+  }
+
+  public String getNumber() {
+    return number;
+  }
+
+  public int getParticipants() {
+    return participants;
+  }
+
+  public String getSubject() {
+    return subject;
+  }
+
+  public String getInstructors() {
+    return instructors;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public Date getLaunchDate() {
+    return launchDate;
+  }
+
+  public double getTotalHours() {
+    return totalHours;
+  }
+
+  public double getPercentAudited() {
+    return percentAudited;
+  }
+
+  public double getMedianAge() {
+    return medianAge;
+  }
+
+  public double getPercentMale() {
+    return percentMale;
+  }
+
+  public double getPercentDegree() {
+    return percentDegree;
+  }
+
+
+  public static int compareByIns(Course c1, Course c2) {
+    return c1.institution.compareTo(c2.institution);
+  }
+
+  public boolean isIndependentlyResponsible() {
+    String[] instructor = instructors.split(", ");
+    return instructor.length == 1;
+  }
+}
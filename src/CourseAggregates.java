@@ -0,0 +1,361 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Running aggregates behind the parameterless queries and {@code getCourses}, maintained row by row so an
+ * append only costs time proportional to the appended rows.
+ *
+ * <p>Every aggregate is keyed by dictionary code and reads nothing but the row being added, so rows can be
+ * discarded once added, which is how {@link CourseStream} uses the three {@code add*} parts separately.
+ *
+ * <p>Instructor titles are collected as title codes and only sorted and deduplicated by title when the
+ * instructor lists are requested, which keeps string comparisons off the load path. A list that fills up
+ * drops its duplicate codes before growing, so it stays proportional to the instructor's distinct titles.
+ *
+ * <p>{@link #copyFor(CourseTable)} gives a writer its own aggregates to extend. The per-instructor title
+ * lists are shared with the original and copied on first write, so the copy costs one array copy per
+ * aggregate rather than one per instructor.
+ *
+ * <p>{@link #build(CourseTable, Parallelism)} computes the initial aggregates of a large table in parallel:
+ * every thread aggregates a contiguous range of rows into partial arrays indexed by dictionary code, and
+ * the partials are merged in range order. Participant sums are integers and the per-title bests are
+ * maxima, so the merged result is exactly what a sequential pass produces.
+ */
+class CourseAggregates {
+  private static final int INDEPENDENT = 0;
+  private static final int SHARED = 1;
+
+  private final CourseTable table;
+  int[] participantsByInstitution = new int[4];
+  int[][] participantsByInstitutionAndSubject = new int[4][];
+  boolean[][] hasInstitutionAndSubject = new boolean[4][];
+  final List<TitleCodes> independentTitles;
+  final List<TitleCodes> sharedTitles;
+  final double[][] bestByMetric;
+  int titleCount;
+
+  CourseAggregates(CourseTable table) {
+    this.table = table;
+    independentTitles = new ArrayList<>();
+    sharedTitles = new ArrayList<>();
+    bestByMetric = new double[CourseMetric.values().length][16];
+    for (int row = 0; row < table.size; row++) {
+      add(row);
+    }
+  }
+
+  private CourseAggregates(CourseAggregates base, CourseTable table) {
+    this.table = table;
+    participantsByInstitution = base.participantsByInstitution.clone();
+    participantsByInstitutionAndSubject = base.participantsByInstitutionAndSubject.clone();
+    hasInstitutionAndSubject = base.hasInstitutionAndSubject.clone();
+    for (int institution = 0; institution < participantsByInstitutionAndSubject.length; institution++) {
+      if (participantsByInstitutionAndSubject[institution] != null) {
+        participantsByInstitutionAndSubject[institution] = participantsByInstitutionAndSubject[institution].clone();
+        hasInstitutionAndSubject[institution] = hasInstitutionAndSubject[institution].clone();
+      }
+    }
+    independentTitles = new ArrayList<>(base.independentTitles);
+    sharedTitles = new ArrayList<>(base.sharedTitles);
+    bestByMetric = base.bestByMetric.clone();
+    for (int metric = 0; metric < bestByMetric.length; metric++) {
+      bestByMetric[metric] = bestByMetric[metric].clone();
+    }
+    titleCount = base.titleCount;
+  }
+
+  private CourseAggregates(CourseTable table, List<TitleCodes> independentTitles, List<TitleCodes> sharedTitles,
+                           double[][] bestByMetric) {
+    this.table = table;
+    this.independentTitles = independentTitles;
+    this.sharedTitles = sharedTitles;
+    this.bestByMetric = bestByMetric;
+  }
+
+  static CourseAggregates build(CourseTable table, Parallelism parallelism) {
+    if (!parallelism.splits(table.size)) {
+      return new CourseAggregates(table);
+    }
+    List<Partial> partials = parallelism.mapRanges(table.size, (from, to) -> new Partial(table, from, to));
+    int institutions = table.institutions.size();
+    int subjects = table.subjects.size();
+    int titles = table.titles.size();
+    int instructors = table.instructorNames.size();
+
+    double[][] best = new double[CourseMetric.values().length][titles];
+    for (double[] values : best) {
+      Arrays.fill(values, Double.NEGATIVE_INFINITY);
+    }
+    int[] byInstitution = new int[institutions];
+    int[][] byInstitutionAndSubject = new int[institutions][subjects];
+    boolean[][] hasSubject = new boolean[institutions][subjects];
+    int titleCount = 0;
+    // Turn each partial's per-instructor title counts into its write offsets, so every range can then
+    // scatter its title codes into the final per-instructor arrays in row order.
+    int[][] totals = new int[2][instructors];
+    for (Partial partial : partials) {
+      for (int institution = 0; institution < institutions; institution++) {
+        byInstitution[institution] += partial.participantsByInstitution[institution];
+        for (int subject = 0; subject < subjects; subject++) {
+          byInstitutionAndSubject[institution][subject] += partial.participantsByInstitutionAndSubject[institution * subjects + subject];
+          hasSubject[institution][subject] |= partial.hasInstitutionAndSubject[institution * subjects + subject];
+        }
+      }
+      for (int metric = 0; metric < best.length; metric++) {
+        double[] merged = best[metric];
+        double[] values = partial.bestByMetric[metric];
+        for (int title = 0; title < titles; title++) {
+          if (Double.compare(values[title], merged[title]) > 0) {
+            merged[title] = values[title];
+          }
+        }
+      }
+      titleCount = Math.max(titleCount, partial.titleCount);
+      for (int kind = 0; kind < 2; kind++) {
+        int[] counts = partial.titleCounts[kind];
+        for (int instructor = 0; instructor < instructors; instructor++) {
+          int count = counts[instructor];
+          counts[instructor] = totals[kind][instructor];
+          totals[kind][instructor] += count;
+        }
+      }
+    }
+    int[][][] codes = new int[2][instructors][];
+    for (int kind = 0; kind < 2; kind++) {
+      for (int instructor = 0; instructor < instructors; instructor++) {
+        codes[kind][instructor] = new int[totals[kind][instructor]];
+      }
+    }
+    parallelism.inPool(partials.size(), part -> {
+      partials.get(part).scatterTitles(codes);
+      return null;
+    });
+
+    List<TitleCodes> independent = new ArrayList<>(instructors);
+    List<TitleCodes> shared = new ArrayList<>(instructors);
+    CourseAggregates aggregates = new CourseAggregates(table, independent, shared, best);
+    for (int instructor = 0; instructor < instructors; instructor++) {
+      independent.add(new TitleCodes(aggregates, codes[INDEPENDENT][instructor]));
+      shared.add(new TitleCodes(aggregates, codes[SHARED][instructor]));
+    }
+    aggregates.participantsByInstitution = byInstitution;
+    aggregates.participantsByInstitutionAndSubject = byInstitutionAndSubject;
+    aggregates.hasInstitutionAndSubject = hasSubject;
+    aggregates.titleCount = titleCount;
+    return aggregates;
+  }
+
+  /**
+   * Aggregates equal to these, bound to {@code table}, a {@link CourseTable#copyForAppend() copy} of the
+   * table they cover, that can be extended with its new rows while readers keep using these.
+   */
+  CourseAggregates copyFor(CourseTable table) {
+    return new CourseAggregates(this, table);
+  }
+
+  void add(int row) {
+    addParticipants(row);
+    addInstructors(row);
+    addMetrics(row);
+  }
+
+  void addParticipants(int row) {
+    int institution = table.institution[row];
+    int subject = table.subject[row];
+    if (institution >= participantsByInstitution.length) {
+      int capacity = Math.max(institution + 1, participantsByInstitution.length * 2);
+      participantsByInstitution = Arrays.copyOf(participantsByInstitution, capacity);
+      participantsByInstitutionAndSubject = Arrays.copyOf(participantsByInstitutionAndSubject, capacity);
+      hasInstitutionAndSubject = Arrays.copyOf(hasInstitutionAndSubject, capacity);
+    }
+    int[] bySubject = participantsByInstitutionAndSubject[institution];
+    if (bySubject == null || subject >= bySubject.length) {
+      int capacity = Math.max(subject + 1, bySubject == null ? 4 : bySubject.length * 2);
+      participantsByInstitutionAndSubject[institution] =
+          bySubject = bySubject == null ? new int[capacity] : Arrays.copyOf(bySubject, capacity);
+      boolean[] present = hasInstitutionAndSubject[institution];
+      hasInstitutionAndSubject[institution] = present == null ? new boolean[capacity] : Arrays.copyOf(present, capacity);
+    }
+    participantsByInstitution[institution] += table.participants[row];
+    bySubject[subject] += table.participants[row];
+    hasInstitutionAndSubject[institution][subject] = true;
+  }
+
+  void addInstructors(int row) {
+    int title = table.title[row];
+    int[] instructors = table.instructorCodesOf(row);
+    List<TitleCodes> titles = instructors.length == 1 ? independentTitles : sharedTitles;
+    for (int instructor : instructors) {
+      while (independentTitles.size() <= instructor) {
+        independentTitles.add(new TitleCodes(this));
+        sharedTitles.add(new TitleCodes(this));
+      }
+      TitleCodes codes = titles.get(instructor);
+      if (codes.owner != this) {
+        codes = codes.copyFor(this);
+        titles.set(instructor, codes);
+      }
+      codes.add(title);
+    }
+  }
+
+  void addMetrics(int row) {
+    int title = table.title[row];
+    boolean firstOfTitle = title >= titleCount;
+    if (firstOfTitle) {
+      titleCount = title + 1;
+      if (titleCount > bestByMetric[0].length) {
+        int capacity = Math.max(titleCount, bestByMetric[0].length * 2);
+        for (int metric = 0; metric < bestByMetric.length; metric++) {
+          bestByMetric[metric] = Arrays.copyOf(bestByMetric[metric], capacity);
+        }
+      }
+    }
+    for (CourseMetric metric : CourseMetric.values()) {
+      double[] best = bestByMetric[metric.ordinal()];
+      double value = metric.valueOf(table, row);
+      if (firstOfTitle || Double.compare(value, best[title]) > 0) {
+        best[title] = value;
+      }
+    }
+  }
+
+  /**
+   * Title codes of one instructor, in arrival order and possibly repeated. Only the owning aggregates add
+   * to a list; a copy shares the code array and appends past the original's size.
+   */
+  static final class TitleCodes {
+    private final CourseAggregates owner;
+    private int[] codes = new int[4];
+    private int size;
+
+    TitleCodes(CourseAggregates owner) {
+      this.owner = owner;
+    }
+
+    TitleCodes(CourseAggregates owner, int[] codes) {
+      this.owner = owner;
+      this.codes = codes.length == 0 ? new int[4] : codes;
+      this.size = codes.length;
+    }
+
+    TitleCodes copyFor(CourseAggregates owner) {
+      TitleCodes copy = new TitleCodes(owner);
+      copy.codes = codes;
+      copy.size = size;
+      return copy;
+    }
+
+    void add(int title) {
+      if (size > 0 && codes[size - 1] == title) {
+        return;
+      }
+      if (size == codes.length) {
+        grow();
+      }
+      codes[size++] = title;
+    }
+
+    /**
+     * Replaces the full code array with a larger one, or with a deduplicated one of the same length when
+     * that frees at least half of it. The old array is never written, since a copy may still share it.
+     */
+    private void grow() {
+      int[] distinct = Arrays.copyOf(codes, size);
+      Arrays.sort(distinct);
+      int count = 0;
+      for (int i = 0; i < distinct.length; i++) {
+        if (i == 0 || distinct[i] != distinct[i - 1]) {
+          distinct[count++] = distinct[i];
+        }
+      }
+      codes = Arrays.copyOf(distinct, count <= size / 2 ? size : size * 2);
+      size = count;
+    }
+
+    /**
+     * Distinct titles in title order; {@code rankOfTitle} maps a title code to its position in
+     * {@code titlesInOrder}.
+     */
+    List<String> sortedTitles(CourseTable table, int[] titlesInOrder, int[] rankOfTitle) {
+      int[] ranks = new int[size];
+      for (int i = 0; i < size; i++) {
+        ranks[i] = rankOfTitle[codes[i]];
+      }
+      Arrays.sort(ranks);
+      List<String> titles = new ArrayList<>();
+      for (int i = 0; i < ranks.length; i++) {
+        if (i == 0 || ranks[i] != ranks[i - 1]) {
+          titles.add(table.titles.decode(titlesInOrder[ranks[i]]));
+        }
+      }
+      return List.copyOf(titles);
+    }
+  }
+
+  /**
+   * Aggregates of one contiguous range of rows, with flat arrays sized by the full dictionaries.
+   */
+  private static final class Partial {
+    private final CourseTable table;
+    private final int from;
+    private final int to;
+    final int[] participantsByInstitution;
+    final int[] participantsByInstitutionAndSubject;
+    final boolean[] hasInstitutionAndSubject;
+    final double[][] bestByMetric;
+    final int[][] titleCounts;
+    int titleCount;
+
+    Partial(CourseTable table, int from, int to) {
+      this.table = table;
+      this.from = from;
+      this.to = to;
+      int subjects = table.subjects.size();
+      participantsByInstitution = new int[table.institutions.size()];
+      participantsByInstitutionAndSubject = new int[table.institutions.size() * subjects];
+      hasInstitutionAndSubject = new boolean[participantsByInstitutionAndSubject.length];
+      bestByMetric = new double[CourseMetric.values().length][table.titles.size()];
+      titleCounts = new int[2][table.instructorNames.size()];
+      for (double[] values : bestByMetric) {
+        Arrays.fill(values, Double.NEGATIVE_INFINITY);
+      }
+      CourseMetric[] metrics = CourseMetric.values();
+      for (int row = from; row < to; row++) {
+        int institution = table.institution[row];
+        int cell = institution * subjects + table.subject[row];
+        participantsByInstitution[institution] += table.participants[row];
+        participantsByInstitutionAndSubject[cell] += table.participants[row];
+        hasInstitutionAndSubject[cell] = true;
+        int title = table.title[row];
+        titleCount = Math.max(titleCount, title + 1);
+        for (CourseMetric metric : metrics) {
+          double value = metric.valueOf(table, row);
+          if (Double.compare(value, bestByMetric[metric.ordinal()][title]) > 0) {
+            bestByMetric[metric.ordinal()][title] = value;
+          }
+        }
+        int[] instructors = table.instructorCodesOf(row);
+        int[] counts = titleCounts[instructors.length == 1 ? INDEPENDENT : SHARED];
+        for (int instructor : instructors) {
+          counts[instructor]++;
+        }
+      }
+    }
+
+    /**
+     * Writes this range's title codes into {@code codes[kind][instructor]}, starting at the offsets the merge
+     * left in {@code titleCounts}.
+     */
+    void scatterTitles(int[][][] codes) {
+      for (int row = from; row < to; row++) {
+        int[] instructors = table.instructorCodesOf(row);
+        int kind = instructors.length == 1 ? INDEPENDENT : SHARED;
+        for (int instructor : instructors) {
+          codes[kind][instructor][titleCounts[kind][instructor]++] = table.title[row];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,364 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.NoSuchElementException;
+
+/**
+ * Parses course CSV records from UTF-8 bytes straight into {@link CourseTable} columns.
+ *
+ * <p>Each field is copied into a reusable scratch array, dropping the surrounding quotes and unescaping
+ * doubled ones on the way (RFC 4180). Integers and plain decimals are then
+ * read digit by digit, {@code MM/dd/yyyy} dates become epoch days, and string columns are looked up in the
+ * table's dictionaries by their bytes, so a row allocates nothing unless it brings a new distinct string.
+ * Anything the fast paths do not cover, such as exponents or other date formats, goes through the JDK
+ * parsers and gives the same result they always did.
+ *
+ * <p>Given a {@link RejectLog}, a record with the wrong number of columns or an unparseable value is
+ * reported there and skipped instead of ending the parse. Clean records take the same path either way.
+ */
+final class CourseCsvParser {
+  private static final byte SEPARATOR = ',';
+  private static final byte QUOTE = '"';
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final int COLUMNS = 23;
+  private static final String[] COLUMN_NAMES = {
+      "Institution", "Course Number", "Launch Date", "Course Title", "Instructors", "Course Subject", "Year",
+      "Honor Code Certificates", "Participants", "Audited", "Certified", "% Audited", "% Certified",
+      "% Certified of > 50% Course Content Accessed", "% Played Video", "% Posted in Forum",
+      "% Grade Higher Than Zero", "Total Course Hours", "Median Hours for Certification", "Median Age",
+      "% Male", "% Female", "% Bachelor's Degree or Higher"
+  };
+  private static final int MAX_REJECT_TEXT = 200;
+
+  private final ByteBuffer input;
+  private final int end;
+  private final long fileOffset;
+  private int pos;
+  private boolean hasNextField;
+  private int column;
+  /**
+   * The unescaped fields of the current record, back to back; the current one is
+   * {@code field[fieldStart, fieldEnd)}.
+   */
+  private byte[] field = new byte[256];
+  private int fieldStart;
+  private int fieldEnd;
+
+  CourseCsvParser(ByteBuffer input, int start, int end) {
+    this(input, start, end, start);
+  }
+
+  /**
+   * A parser for {@code input[start, end)}, which holds the file's bytes from {@code fileOffset} on; the
+   * offset only matters for the positions reported to a {@link RejectLog}.
+   */
+  CourseCsvParser(ByteBuffer input, int start, int end, long fileOffset) {
+    this.input = input;
+    this.pos = start;
+    this.end = end;
+    this.fileOffset = fileOffset - start;
+  }
+
+  void parseInto(CourseTable table) {
+    parseInto(table, null);
+  }
+
+  /**
+   * Parses every record into {@code table}. With a reject log, records with the wrong number of columns or
+   * a value that does not parse are reported to it and skipped; without one, the first such record ends
+   * the parse with its exception, and surplus columns are ignored.
+   */
+  void parseInto(CourseTable table, RejectLog rejects) {
+    while (hasNextRecord()) {
+      int recordStart = pos;
+      int row = table.addRow();
+      try {
+        parseRecord(table, row, rejects != null);
+      } catch (RuntimeException e) {
+        if (rejects == null) {
+          throw e;
+        }
+        table.size = row;
+        pos = recordEnd(recordStart);
+        rejects.reject(fileOffset + recordStart, reason(e), recordText(recordStart, pos));
+      }
+    }
+  }
+
+  /**
+   * Reads one record into {@code row}. String columns are only encoded once every column has parsed, so a
+   * rejected record leaves no trace in the dictionaries.
+   */
+  private void parseRecord(CourseTable table, int row, boolean exactColumns) {
+    fieldEnd = 0;
+    column = 0;
+    int institutionStart = fieldEnd;
+    int institutionEnd = institutionStart + nextField();
+    int numberStart = fieldEnd;
+    int numberEnd = numberStart + nextField();
+    table.launchDay[row] = nextEpochDay();
+    int titleStart = fieldEnd;
+    int titleEnd = titleStart + nextField();
+    int instructorsStart = fieldEnd;
+    int instructorsEnd = instructorsStart + nextField();
+    int subjectStart = fieldEnd;
+    int subjectEnd = subjectStart + nextField();
+    table.year[row] = nextInt();
+    table.honorCode[row] = nextInt();
+    table.participants[row] = nextInt();
+    table.audited[row] = nextInt();
+    table.certified[row] = nextInt();
+    table.percentAudited[row] = nextDouble();
+    table.percentCertified[row] = nextDouble();
+    table.percentCertified50[row] = nextDouble();
+    table.percentVideo[row] = nextDouble();
+    table.percentForum[row] = nextDouble();
+    table.gradeHigherZero[row] = nextDouble();
+    table.totalHours[row] = nextDouble();
+    table.medianHoursCertification[row] = nextDouble();
+    table.medianAge[row] = nextDouble();
+    table.percentMale[row] = nextDouble();
+    table.percentFemale[row] = nextDouble();
+    table.percentDegree[row] = nextDouble();
+    if (exactColumns && hasNextField) {
+      endRecord();
+      throw new IllegalArgumentException("expected " + COLUMNS + " columns, found " + column);
+    }
+    endRecord();
+    table.institution[row] = table.institutions.encode(field, institutionStart, institutionEnd);
+    table.number[row] = table.numbers.encode(field, numberStart, numberEnd);
+    table.title[row] = table.titles.encode(field, titleStart, titleEnd);
+    table.instructors[row] = table.encodeInstructors(field, instructorsStart, instructorsEnd);
+    table.subject[row] = table.subjects.encode(field, subjectStart, subjectEnd);
+  }
+
+  private String reason(RuntimeException e) {
+    if (e instanceof NoSuchElementException) {
+      return "expected " + COLUMNS + " columns, found " + column;
+    }
+    if (column > COLUMNS) {
+      return e.getMessage();
+    }
+    return COLUMN_NAMES[column - 1] + ": " + e.getClass().getSimpleName() + ": " + e.getMessage();
+  }
+
+  /**
+   * Offset just past the line break that ends the record starting at {@code start}, skipping line breaks
+   * inside quotes, or the end of the input.
+   */
+  private int recordEnd(int start) {
+    boolean inQuote = false;
+    for (int i = start; i < end; i++) {
+      byte b = input.get(i);
+      if (b == QUOTE) {
+        inQuote = !inQuote;
+      } else if (b == '\n' && !inQuote) {
+        return i + 1;
+      }
+    }
+    return end;
+  }
+
+  private String recordText(int start, int stop) {
+    int length = Math.min(stop - start, MAX_REJECT_TEXT);
+    while (length > 0 && isLineBreak(input.get(start + length - 1))) {
+      length--;
+    }
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      bytes[i] = input.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private boolean hasNextRecord() {
+    while (pos < end && isLineBreak(input.get(pos))) {
+      pos++;
+    }
+    hasNextField = pos < end;
+    return hasNextField;
+  }
+
+  private void endRecord() {
+    while (hasNextField) {
+      nextField();
+    }
+    if (pos < end && input.get(pos) == '\r') {
+      pos++;
+    }
+    if (pos < end && input.get(pos) == '\n') {
+      pos++;
+    }
+  }
+
+  /**
+   * Copies the next field into {@code field} after the record's previous ones and returns its length.
+   */
+  private int nextField() {
+    if (!hasNextField) {
+      throw new NoSuchElementException("No more fields in CSV record");
+    }
+    column++;
+    fieldStart = fieldEnd;
+    if (pos < end && input.get(pos) == QUOTE) {
+      readQuoted();
+    } else {
+      readUnquoted();
+    }
+    if (pos < end && input.get(pos) == SEPARATOR) {
+      pos++;
+    } else {
+      hasNextField = false;
+    }
+    return fieldEnd - fieldStart;
+  }
+
+  private void readUnquoted() {
+    while (pos < end) {
+      byte b = input.get(pos);
+      if (b == SEPARATOR || isLineBreak(b)) {
+        return;
+      }
+      append(b);
+      pos++;
+    }
+  }
+
+  private void readQuoted() {
+    pos++;
+    while (pos < end) {
+      byte b = input.get(pos++);
+      if (b != QUOTE) {
+        append(b);
+      } else if (pos < end && input.get(pos) == QUOTE) {
+        append(QUOTE);
+        pos++;
+      } else {
+        skipToSeparator();
+        return;
+      }
+    }
+  }
+
+  private void skipToSeparator() {
+    while (pos < end) {
+      byte b = input.get(pos);
+      if (b == SEPARATOR || isLineBreak(b)) {
+        return;
+      }
+      pos++;
+    }
+  }
+
+  private void append(byte b) {
+    if (fieldEnd == field.length) {
+      byte[] grown = new byte[field.length * 2];
+      System.arraycopy(field, 0, grown, 0, fieldEnd);
+      field = grown;
+    }
+    field[fieldEnd++] = b;
+  }
+
+  private int nextInt() {
+    int length = nextField();
+    int from = fieldStart;
+    int i = length > 0 && (field[from] == '-' || field[from] == '+') ? from + 1 : from;
+    if (fieldEnd == i || fieldEnd - i > 9) {
+      return Integer.parseInt(fieldString());
+    }
+    int value = 0;
+    for (int j = i; j < fieldEnd; j++) {
+      int digit = field[j] - '0';
+      if (digit < 0 || digit > 9) {
+        return Integer.parseInt(fieldString());
+      }
+      value = value * 10 + digit;
+    }
+    return field[from] == '-' ? -value : value;
+  }
+
+  /**
+   * Reads {@code [-]digits[.digits]} as mantissa / 10^scale. When the mantissa fits in 53 bits and the
+   * scale in the exactly representable powers of ten, both operands are exact and the division is
+   * correctly rounded, so the result equals {@link Double#parseDouble}.
+   */
+  private double nextDouble() {
+    int length = nextField();
+    boolean negative = length > 0 && field[fieldStart] == '-';
+    long mantissa = 0;
+    int digits = 0;
+    int scale = -1;
+    for (int i = negative ? fieldStart + 1 : fieldStart; i < fieldEnd; i++) {
+      byte b = field[i];
+      if (b >= '0' && b <= '9') {
+        if (++digits > 18) {
+          return Double.parseDouble(fieldString());
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        if (scale >= 0) {
+          scale++;
+        }
+      } else if (b == '.' && scale < 0) {
+        scale = 0;
+      } else {
+        return Double.parseDouble(fieldString());
+      }
+    }
+    if (digits == 0 || mantissa > MAX_EXACT_MANTISSA || scale >= POWERS_OF_TEN.length) {
+      return Double.parseDouble(fieldString());
+    }
+    double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+    return negative ? -value : value;
+  }
+
+  /**
+   * Reads an {@code M/d/yyyy} date as an epoch day; other formats go through the lenient {@code Date}
+   * parser the loader always used.
+   */
+  @SuppressWarnings("deprecation")
+  private int nextEpochDay() {
+    int length = nextField();
+    int from = fieldStart;
+    int month = 0;
+    int day = 0;
+    int year = 0;
+    int part = 0;
+    int partDigits = 0;
+    boolean valid = length > 0;
+    for (int i = from; i < fieldEnd && valid; i++) {
+      byte b = field[i];
+      if (b == '/') {
+        valid = partDigits > 0 && ++part < 3;
+        partDigits = 0;
+      } else if (b >= '0' && b <= '9' && partDigits < 4) {
+        partDigits++;
+        if (part == 0) {
+          month = month * 10 + (b - '0');
+        } else if (part == 1) {
+          day = day * 10 + (b - '0');
+        } else {
+          year = year * 10 + (b - '0');
+        }
+      } else {
+        valid = false;
+      }
+    }
+    if (valid && part == 2 && partDigits == 4 && month >= 1 && month <= 12 && day >= 1 && day <= 31) {
+      return CourseTable.epochDay(year, month, day);
+    }
+    return CourseTable.toEpochDay(new Date(fieldString()));
+  }
+
+  private String fieldString() {
+    return new String(field, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+  }
+
+  private static boolean isLineBreak(byte b) {
+    return b == '\n' || b == '\r';
+  }
+}
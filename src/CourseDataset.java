@@ -0,0 +1,72 @@
+import java.util.List;
+
+/**
+ * One published version of the loaded courses together with every index the queries read. Nothing reachable
+ * from a dataset changes after it is published, so any number of readers can query it without locking;
+ * writers publish a new dataset instead.
+ */
+final class CourseDataset {
+  final long version;
+  final CourseTable table;
+  final CourseAggregates aggregates;
+  final CourseProfileIndex profiles;
+  final SearchIndex searchIndex;
+  /**
+   * The version of the CSV whose rows are exactly this dataset's, or {@code null} once rows were appended,
+   * skipped as malformed, or did not come from a single CSV.
+   */
+  final CourseSnapshot.Fingerprint source;
+
+  private CourseDataset(long version, CourseTable table, CourseAggregates aggregates, CourseProfileIndex profiles,
+                        SearchIndex searchIndex, CourseSnapshot.Fingerprint source) {
+    this.version = version;
+    this.table = table;
+    this.aggregates = aggregates;
+    this.profiles = profiles;
+    this.searchIndex = searchIndex;
+    this.source = source;
+  }
+
+  static CourseDataset of(long version, CourseTable table, Parallelism parallelism) {
+    return of(version, table, parallelism, null);
+  }
+
+  static CourseDataset of(long version, CourseTable table, Parallelism parallelism,
+                          CourseSnapshot.Fingerprint source) {
+    return new CourseDataset(version, table, CourseAggregates.build(table, parallelism), new CourseProfileIndex(table),
+        new SearchIndex(table), source);
+  }
+
+  /**
+   * A dataset with the rows of {@code delta} added after this one's. This dataset is left untouched: the
+   * new one extends copies of its table and aggregates, so the cost is proportional to the delta plus the
+   * number of distinct keys, not the number of rows.
+   */
+  CourseDataset append(CourseTable delta) {
+    CourseTable extended = table.copyForAppend();
+    extended.appendAll(delta);
+    return extendedBy(extended);
+  }
+
+  CourseDataset append(List<Course> courses) {
+    CourseTable extended = table.copyForAppend();
+    for (Course course : courses) {
+      extended.add(course);
+    }
+    return extendedBy(extended);
+  }
+
+  private CourseDataset extendedBy(CourseTable extended) {
+    CourseAggregates extendedAggregates = aggregates.copyFor(extended);
+    CourseProfileIndex extendedProfiles = profiles.copyFor(extended);
+    for (int row = table.size; row < extended.size; row++) {
+      extendedAggregates.add(row);
+      extendedProfiles.add(row);
+    }
+    SearchIndex extendedSearch = searchIndex.forTable(extended);
+    if (extendedSearch.needsRebuild()) {
+      extendedSearch = new SearchIndex(extended);
+    }
+    return new CourseDataset(version + 1, extended, extendedAggregates, extendedProfiles, extendedSearch, null);
+  }
+}
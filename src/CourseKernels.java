@@ -0,0 +1,73 @@
+/**
+ * Tight loops over whole columns that the queries spend most of their time in. This class is the scalar
+ * implementation; {@link #get()} returns a subclass that evaluates the same loops in SIMD lanes through the
+ * incubating Vector API when the JVM runs with {@code --add-modules jdk.incubator.vector}, and this one
+ * otherwise. Both produce bit-identical results, so callers never need to know which one they got.
+ *
+ * <p>The vector path can be turned off with {@code -Dcourses.vector=false}.
+ */
+class CourseKernels {
+  private static final CourseKernels SCALAR = new CourseKernels();
+  private static final CourseKernels PREFERRED = load();
+
+  CourseKernels() {
+  }
+
+  static CourseKernels get() {
+    return PREFERRED;
+  }
+
+  static CourseKernels scalar() {
+    return SCALAR;
+  }
+
+  /**
+   * Whether this implementation uses SIMD lanes.
+   */
+  boolean vectorized() {
+    return false;
+  }
+
+  /**
+   * Sets bit {@code row} of {@code mask} for every {@code row < n} with {@code atLeast[row] >= min} and
+   * {@code atMost[row] <= max}, and clears the others. NaN satisfies neither bound.
+   */
+  void rangeMask(double[] atLeast, double min, double[] atMost, double max, int n, long[] mask) {
+    for (int word = 0; word << 6 < n; word++) {
+      int from = word << 6;
+      int to = Math.min(from + 64, n);
+      long bits = 0;
+      for (int row = from; row < to; row++) {
+        if (atLeast[row] >= min && atMost[row] <= max) {
+          bits |= 1L << (row - from);
+        }
+      }
+      mask[word] = bits;
+    }
+  }
+
+  /**
+   * {@code out[i] = (x - a[i])^2 + (y - b[i])^2 + (z - c[i])^2} for every {@code i < n}, rounded after each
+   * operation in that order.
+   */
+  void squaredDistances(double[] a, double[] b, double[] c, double x, double y, double z, int n, double[] out) {
+    for (int i = 0; i < n; i++) {
+      double da = x - a[i];
+      double db = y - b[i];
+      double dc = z - c[i];
+      out[i] = da * da + db * db + dc * dc;
+    }
+  }
+
+  private static CourseKernels load() {
+    if (!Boolean.parseBoolean(System.getProperty("courses.vector", "true"))) {
+      return SCALAR;
+    }
+    try {
+      return (CourseKernels) Class.forName("VectorCourseKernels").getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // not compiled in, or jdk.incubator.vector is not in the boot layer
+      return SCALAR;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/**
+ * Numeric columns {@code getCourses} can rank by, keyed by the {@code by} argument.
+ */
+enum CourseMetric {
+  HOURS("hours") {
+    @Override
+    double valueOf(CourseTable table, int row) {
+      return table.totalHours[row];
+    }
+  },
+  PARTICIPANTS("participants") {
+    @Override
+    double valueOf(CourseTable table, int row) {
+      return table.participants[row];
+    }
+  },
+  AUDITED("audited") {
+    @Override
+    double valueOf(CourseTable table, int row) {
+      return table.audited[row];
+    }
+  },
+  CERTIFIED("certified") {
+    @Override
+    double valueOf(CourseTable table, int row) {
+      return table.certified[row];
+    }
+  },
+  PERCENT_AUDITED("percentAudited") {
+    @Override
+    double valueOf(CourseTable table, int row) {
+      return table.percentAudited[row];
+    }
+  },
+  PERCENT_CERTIFIED("percentCertified") {
+    @Override
+    double valueOf(CourseTable table, int row) {
+      return table.percentCertified[row];
+    }
+  },
+  MEDIAN_HOURS_CERTIFICATION("medianHoursCertification") {
+    @Override
+    double valueOf(CourseTable table, int row) {
+      return table.medianHoursCertification[row];
+    }
+  };
+
+  private final String key;
+
+  CourseMetric(String key) {
+    this.key = key;
+  }
+
+  abstract double valueOf(CourseTable table, int row);
+
+  static CourseMetric of(String key) {
+    for (CourseMetric metric : values()) {
+      if (metric.key.equals(key)) {
+        return metric;
+      }
+    }
+    throw new IllegalArgumentException("Unknown course metric: " + key);
+  }
+}
@@ -0,0 +1,414 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-course-number demographic profile used by {@code recommendCourses}: running sums and counts of
+ * median age, % male and % degree, plus the title of the most recently launched run of every number.
+ * Nothing refers back to rows once they are added, so the rows need not be kept.
+ *
+ * <p>Numbers whose latest run shares a title are scored together as one candidate, so a query only has to
+ * keep the best score per candidate and pick the ten best candidates. Scores for all numbers are computed
+ * in one {@link CourseKernels#squaredDistances} pass over per-number averages, which are derived from the
+ * sums on the first query and kept until the next {@link #add}.
+ */
+class CourseProfileIndex {
+  /**
+   * Numbers scored per block in {@link #recommendAll}: three arrays of 1024 doubles fit in L1 next to the
+   * scores.
+   */
+  static final int SCORE_BLOCK = 1024;
+
+  private final CourseTable table;
+  int numberCount;
+  double[] medianAgeSum = new double[16];
+  double[] malePercentageSum = new double[16];
+  double[] bachelorPercentageSum = new double[16];
+  int[] count = new int[16];
+  int[] latestLaunchDay = new int[16];
+  int[] candidateOf = new int[16];
+  int candidateCount;
+  int[] candidateTitle = new int[16];
+  private int[] candidateOfTitle = new int[16];
+  private volatile Averages averages;
+
+  CourseProfileIndex(CourseTable table) {
+    this.table = table;
+    Arrays.fill(candidateOfTitle, -1);
+    for (int row = 0; row < table.size; row++) {
+      add(row);
+    }
+  }
+
+  private CourseProfileIndex(CourseProfileIndex base, CourseTable table) {
+    this.table = table;
+    numberCount = base.numberCount;
+    medianAgeSum = base.medianAgeSum.clone();
+    malePercentageSum = base.malePercentageSum.clone();
+    bachelorPercentageSum = base.bachelorPercentageSum.clone();
+    count = base.count.clone();
+    latestLaunchDay = base.latestLaunchDay.clone();
+    candidateOf = base.candidateOf.clone();
+    candidateCount = base.candidateCount;
+    candidateTitle = base.candidateTitle.clone();
+    candidateOfTitle = base.candidateOfTitle.clone();
+  }
+
+  /**
+   * An index equal to this one, bound to {@code table}, a {@link CourseTable#copyForAppend() copy} of the
+   * table it covers, that can be extended with its new rows while readers keep using this one.
+   */
+  CourseProfileIndex copyFor(CourseTable table) {
+    return new CourseProfileIndex(this, table);
+  }
+
+  void add(int row) {
+    int number = table.number[row];
+    if (number >= numberCount) {
+      ensureNumbers(number + 1);
+    }
+    medianAgeSum[number] += table.medianAge[row];
+    malePercentageSum[number] += table.percentMale[row];
+    bachelorPercentageSum[number] += table.percentDegree[row];
+    count[number]++;
+    averages = null;
+    if (count[number] == 1 || table.launchDay[row] > latestLaunchDay[number]) {
+      latestLaunchDay[number] = table.launchDay[row];
+      candidateOf[number] = candidateFor(table.title[row]);
+    }
+  }
+
+  List<String> recommend(int age, int gender, int isBachelorOrHigher, int limit) {
+    Averages averages = averages();
+    double[] scores = new double[numberCount];
+    CourseKernels.get().squaredDistances(averages.medianAge, averages.malePercentage, averages.bachelorPercentage,
+        age, gender * 100, isBachelorOrHigher * 100, numberCount, scores);
+    double[] best = new double[candidateCount];
+    boolean[] present = new boolean[candidateCount];
+    for (int number = 0; number < numberCount; number++) {
+      int candidate = candidateOf[number];
+      if (!present[candidate] || Double.compare(scores[number], best[candidate]) < 0) {
+        best[candidate] = scores[number];
+        present[candidate] = true;
+      }
+    }
+    TopK topK = new TopK(limit, (a, b) -> {
+      int byScore = Double.compare(best[a], best[b]);
+      return byScore != 0 ? byScore : table.titles.decode(candidateTitle[a]).compareTo(table.titles.decode(candidateTitle[b]));
+    });
+    for (int candidate = 0; candidate < candidateCount; candidate++) {
+      if (present[candidate]) {
+        topK.offer(candidate);
+      }
+    }
+    List<String> recommendedCourses = new ArrayList<>(topK.size());
+    for (int candidate : topK.toSortedArray()) {
+      recommendedCourses.add(table.titles.decode(candidateTitle[candidate]));
+    }
+    return recommendedCourses;
+  }
+
+  /**
+   * {@link #recommend} for every profile {@code (ages[i], genders[i], degrees[i])}, each distinct profile
+   * scored once. Numbers are grouped by candidate so a candidate's best score is a running minimum, and the
+   * groups are walked in blocks of {@value #SCORE_BLOCK} numbers: each block's averages stay in cache while
+   * every profile of a range is scored against it. Ranges of profiles run in parallel on large batches.
+   */
+  List<List<String>> recommendAll(int[] ages, int[] genders, int[] degrees, int limit, Parallelism parallelism) {
+    int[] profileOf = new int[ages.length];
+    int[] distinct = distinctProfiles(ages, genders, degrees, profileOf);
+    int profiles = distinct.length / 3;
+    CandidateLayout layout = new CandidateLayout(this);
+    long work = (long) profiles * numberCount;
+    List<List<List<String>>> ranges = parallelism.splits((int) Math.min(work, Integer.MAX_VALUE)) && profiles > 1
+        ? parallelism.mapRanges(profiles, (from, to) -> layout.recommend(distinct, from, to, limit))
+        : List.of(layout.recommend(distinct, 0, profiles, limit));
+    List<List<String>> byProfile = new ArrayList<>(profiles);
+    for (List<List<String>> range : ranges) {
+      byProfile.addAll(range);
+    }
+    List<List<String>> result = new ArrayList<>(ages.length);
+    for (int profile : profileOf) {
+      result.add(byProfile.get(profile));
+    }
+    return result;
+  }
+
+  /**
+   * The distinct {@code (age, gender, degree)} triples in first-seen order, flattened, with the index of
+   * each input's triple written to {@code profileOf}.
+   */
+  private static int[] distinctProfiles(int[] ages, int[] genders, int[] degrees, int[] profileOf) {
+    int[] slots = new int[Integer.highestOneBit(Math.max(1, ages.length) * 2) * 2];
+    Arrays.fill(slots, -1);
+    int mask = slots.length - 1;
+    int[] distinct = new int[3 * Math.min(ages.length, 1024)];
+    int count = 0;
+    for (int i = 0; i < ages.length; i++) {
+      int hash = (ages[i] * 31 + genders[i]) * 31 + degrees[i];
+      int slot = (hash ^ hash >>> 16) * 0x9E3779B9 & mask;
+      while (slots[slot] >= 0) {
+        int known = slots[slot];
+        if (distinct[3 * known] == ages[i] && distinct[3 * known + 1] == genders[i]
+            && distinct[3 * known + 2] == degrees[i]) {
+          break;
+        }
+        slot = slot + 1 & mask;
+      }
+      if (slots[slot] < 0) {
+        if (3 * count == distinct.length) {
+          distinct = Arrays.copyOf(distinct, distinct.length * 2);
+        }
+        distinct[3 * count] = ages[i];
+        distinct[3 * count + 1] = genders[i];
+        distinct[3 * count + 2] = degrees[i];
+        slots[slot] = count++;
+      }
+      profileOf[i] = slots[slot];
+    }
+    return Arrays.copyOf(distinct, 3 * count);
+  }
+
+  private Averages averages() {
+    Averages result = averages;
+    if (result == null) {
+      averages = result = new Averages(this);
+    }
+    return result;
+  }
+
+  private int candidateFor(int title) {
+    if (title >= candidateOfTitle.length) {
+      int oldLength = candidateOfTitle.length;
+      candidateOfTitle = Arrays.copyOf(candidateOfTitle, Math.max(title + 1, oldLength * 2));
+      Arrays.fill(candidateOfTitle, oldLength, candidateOfTitle.length, -1);
+    }
+    if (candidateOfTitle[title] < 0) {
+      if (candidateCount == candidateTitle.length) {
+        candidateTitle = Arrays.copyOf(candidateTitle, candidateCount * 2);
+      }
+      candidateTitle[candidateCount] = title;
+      candidateOfTitle[title] = candidateCount++;
+    }
+    return candidateOfTitle[title];
+  }
+
+  private void ensureNumbers(int numbers) {
+    if (numbers > count.length) {
+      int capacity = Math.max(numbers, count.length * 2);
+      medianAgeSum = Arrays.copyOf(medianAgeSum, capacity);
+      malePercentageSum = Arrays.copyOf(malePercentageSum, capacity);
+      bachelorPercentageSum = Arrays.copyOf(bachelorPercentageSum, capacity);
+      count = Arrays.copyOf(count, capacity);
+      latestLaunchDay = Arrays.copyOf(latestLaunchDay, capacity);
+      candidateOf = Arrays.copyOf(candidateOf, capacity);
+    }
+    numberCount = numbers;
+  }
+
+  /**
+   * The per-number averages reordered so the numbers of each candidate are adjacent, plus each candidate's
+   * rank in title order, which breaks score ties the way comparing titles does.
+   */
+  private static final class CandidateLayout {
+    final CourseProfileIndex index;
+    final double[] medianAge;
+    final double[] malePercentage;
+    final double[] bachelorPercentage;
+    final int[] candidateAt;
+    final int[] titleRank;
+    final int numbers;
+
+    CandidateLayout(CourseProfileIndex index) {
+      this.index = index;
+      Averages averages = index.averages();
+      numbers = index.numberCount;
+      int candidates = index.candidateCount;
+      int[] start = new int[candidates + 1];
+      for (int number = 0; number < numbers; number++) {
+        start[index.candidateOf[number] + 1]++;
+      }
+      for (int candidate = 0; candidate < candidates; candidate++) {
+        start[candidate + 1] += start[candidate];
+      }
+      medianAge = new double[numbers];
+      malePercentage = new double[numbers];
+      bachelorPercentage = new double[numbers];
+      candidateAt = new int[numbers];
+      for (int number = 0; number < numbers; number++) {
+        int candidate = index.candidateOf[number];
+        int at = start[candidate]++;
+        medianAge[at] = averages.medianAge[number];
+        malePercentage[at] = averages.malePercentage[number];
+        bachelorPercentage[at] = averages.bachelorPercentage[number];
+        candidateAt[at] = candidate;
+      }
+      int[] rankOfTitle = new int[index.table.titles.size()];
+      int[] titlesInOrder = index.table.titlesInOrder();
+      for (int rank = 0; rank < titlesInOrder.length; rank++) {
+        rankOfTitle[titlesInOrder[rank]] = rank;
+      }
+      titleRank = new int[candidates];
+      for (int candidate = 0; candidate < candidates; candidate++) {
+        titleRank[candidate] = rankOfTitle[index.candidateTitle[candidate]];
+      }
+    }
+
+    /**
+     * Recommendations for profiles {@code [from, to)} of the flattened {@code profiles}.
+     */
+    List<List<String>> recommend(int[] profiles, int from, int to, int limit) {
+      int count = to - from;
+      BestCandidates[] best = new BestCandidates[count];
+      int[] current = new int[count];
+      double[] currentScore = new double[count];
+      for (int p = 0; p < count; p++) {
+        best[p] = new BestCandidates(limit, titleRank);
+        current[p] = -1;
+      }
+      CourseKernels kernels = CourseKernels.get();
+      double[] scores = new double[Math.min(SCORE_BLOCK, numbers)];
+      for (int blockStart = 0; blockStart < numbers; blockStart += SCORE_BLOCK) {
+        int blockLength = Math.min(SCORE_BLOCK, numbers - blockStart);
+        double[] ages = Arrays.copyOfRange(medianAge, blockStart, blockStart + blockLength);
+        double[] males = Arrays.copyOfRange(malePercentage, blockStart, blockStart + blockLength);
+        double[] bachelors = Arrays.copyOfRange(bachelorPercentage, blockStart, blockStart + blockLength);
+        for (int p = 0; p < count; p++) {
+          int profile = 3 * (from + p);
+          kernels.squaredDistances(ages, males, bachelors, profiles[profile], profiles[profile + 1] * 100,
+              profiles[profile + 2] * 100, blockLength, scores);
+          int candidate = current[p];
+          double score = currentScore[p];
+          for (int i = 0; i < blockLength; i++) {
+            int next = candidateAt[blockStart + i];
+            if (next != candidate) {
+              if (candidate >= 0) {
+                best[p].offer(candidate, score);
+              }
+              candidate = next;
+              score = scores[i];
+            } else if (Double.compare(scores[i], score) < 0) {
+              score = scores[i];
+            }
+          }
+          current[p] = candidate;
+          currentScore[p] = score;
+        }
+      }
+      List<List<String>> result = new ArrayList<>(count);
+      for (int p = 0; p < count; p++) {
+        if (current[p] >= 0) {
+          best[p].offer(current[p], currentScore[p]);
+        }
+        int[] candidates = best[p].toSortedArray();
+        String[] titles = new String[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+          titles[i] = index.table.titles.decode(index.candidateTitle[candidates[i]]);
+        }
+        result.add(List.of(titles));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * The {@code limit} candidates with the lowest scores, ties broken by title rank; like {@link TopK} but
+   * keeping each candidate's score alongside it.
+   */
+  private static final class BestCandidates {
+    private final double[] scores;
+    private final int[] candidates;
+    private final int[] titleRank;
+    private int size;
+
+    BestCandidates(int limit, int[] titleRank) {
+      scores = new double[limit];
+      candidates = new int[limit];
+      this.titleRank = titleRank;
+    }
+
+    void offer(int candidate, double score) {
+      if (size < candidates.length) {
+        int index = size++;
+        while (index > 0 && worse(candidate, score, (index - 1) >>> 1)) {
+          move((index - 1) >>> 1, index);
+          index = (index - 1) >>> 1;
+        }
+        set(index, candidate, score);
+      } else if (size > 0 && !worse(candidate, score, 0)) {
+        siftDown(candidate, score);
+      }
+    }
+
+    int[] toSortedArray() {
+      int[] sorted = new int[size];
+      for (int i = sorted.length - 1; i >= 0; i--) {
+        sorted[i] = candidates[0];
+        size--;
+        if (size > 0) {
+          siftDown(candidates[size], scores[size]);
+        }
+      }
+      return sorted;
+    }
+
+    /**
+     * Places {@code candidate} at the root, replacing it, and restores the heap of the first {@code size}.
+     */
+    private void siftDown(int candidate, double score) {
+      int index = 0;
+      int half = size >>> 1;
+      while (index < half) {
+        int child = 2 * index + 1;
+        if (child + 1 < size && worse(candidates[child + 1], scores[child + 1], child)) {
+          child++;
+        }
+        if (!worse(candidates[child], scores[child], candidate, score)) {
+          break;
+        }
+        move(child, index);
+        index = child;
+      }
+      set(index, candidate, score);
+    }
+
+    private boolean worse(int candidate, double score, int slot) {
+      return worse(candidate, score, candidates[slot], scores[slot]);
+    }
+
+    private boolean worse(int a, double scoreA, int b, double scoreB) {
+      int byScore = Double.compare(scoreA, scoreB);
+      return byScore != 0 ? byScore > 0 : titleRank[a] > titleRank[b];
+    }
+
+    private void move(int from, int to) {
+      set(to, candidates[from], scores[from]);
+    }
+
+    private void set(int slot, int candidate, double score) {
+      candidates[slot] = candidate;
+      scores[slot] = score;
+    }
+  }
+
+  /**
+   * Per-number means of the three profile columns. Racing readers may each build one; they are equal.
+   */
+  private static final class Averages {
+    final double[] medianAge;
+    final double[] malePercentage;
+    final double[] bachelorPercentage;
+
+    Averages(CourseProfileIndex index) {
+      int numbers = index.numberCount;
+      medianAge = new double[numbers];
+      malePercentage = new double[numbers];
+      bachelorPercentage = new double[numbers];
+      for (int number = 0; number < numbers; number++) {
+        medianAge[number] = index.medianAgeSum[number] / index.count[number];
+        malePercentage[number] = index.malePercentageSum[number] / index.count[number];
+        bachelorPercentage[number] = index.bachelorPercentageSum[number] / index.count[number];
+      }
+    }
+  }
+}
@@ -0,0 +1,658 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoublePredicate;
+import java.util.function.Predicate;
+
+/**
+ * Ad-hoc filter / group-by / aggregate queries over one dataset, for example
+ * <pre>{@code
+ * analyzer.query()
+ *     .where(CourseQuery.Key.SUBJECT, subject -> subject.contains("Science"))
+ *     .where(CourseQuery.Column.YEAR, year -> year >= 3)
+ *     .groupBy(CourseQuery.Key.INSTITUTION)
+ *     .aggregate(CourseQuery.Aggregate.sum(CourseQuery.Column.PARTICIPANTS), CourseQuery.Aggregate.count())
+ *     .orderByValue(0, true)
+ *     .limit(5)
+ *     .execute();
+ * }</pre>
+ *
+ * <p>Execution is one pass over the row ids. String predicates are evaluated once per distinct value into a
+ * lookup table, numeric ones read the column arrays directly, and a row's group is found by packing its key
+ * codes into one {@code long} and probing a primitive hash table. Aggregates accumulate into per-group
+ * arrays; averages are summed in row order. A row whose instructor list names several instructors belongs
+ * to the group of each of them that passes the instructor filters. Rows come out ordered by the order
+ * terms, then by the group keys.
+ */
+public final class CourseQuery {
+
+  /**
+   * Columns a query can filter on and group by.
+   */
+  public enum Key {
+    INSTITUTION, SUBJECT, YEAR, NUMBER, INSTRUCTOR, TITLE;
+
+    /**
+     * The column holding this key for every row, or {@code null} for {@link #INSTRUCTOR}, which has several
+     * values per row.
+     */
+    private int[] codes(CourseTable table) {
+      switch (this) {
+        case INSTITUTION:
+          return table.institution;
+        case SUBJECT:
+          return table.subject;
+        case YEAR:
+          return table.year;
+        case NUMBER:
+          return table.number;
+        case TITLE:
+          return table.title;
+        default:
+          return null;
+      }
+    }
+
+    private StringDictionary dictionary(CourseTable table) {
+      switch (this) {
+        case INSTITUTION:
+          return table.institutions;
+        case SUBJECT:
+          return table.subjects;
+        case NUMBER:
+          return table.numbers;
+        case INSTRUCTOR:
+          return table.instructorNames;
+        case TITLE:
+          return table.titles;
+        default:
+          return null;
+      }
+    }
+  }
+
+  /**
+   * Numeric columns a query can filter on and aggregate.
+   */
+  public enum Column {
+    YEAR {
+      @Override
+      RowValues reader(CourseTable table) {
+        int[] values = table.year;
+        return row -> values[row];
+      }
+    },
+    HONOR_CODE {
+      @Override
+      RowValues reader(CourseTable table) {
+        int[] values = table.honorCode;
+        return row -> values[row];
+      }
+    },
+    PARTICIPANTS {
+      @Override
+      RowValues reader(CourseTable table) {
+        int[] values = table.participants;
+        return row -> values[row];
+      }
+    },
+    AUDITED {
+      @Override
+      RowValues reader(CourseTable table) {
+        int[] values = table.audited;
+        return row -> values[row];
+      }
+    },
+    CERTIFIED {
+      @Override
+      RowValues reader(CourseTable table) {
+        int[] values = table.certified;
+        return row -> values[row];
+      }
+    },
+    PERCENT_AUDITED {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentAudited;
+        return row -> values[row];
+      }
+    },
+    PERCENT_CERTIFIED {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentCertified;
+        return row -> values[row];
+      }
+    },
+    PERCENT_CERTIFIED_50 {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentCertified50;
+        return row -> values[row];
+      }
+    },
+    PERCENT_VIDEO {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentVideo;
+        return row -> values[row];
+      }
+    },
+    PERCENT_FORUM {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentForum;
+        return row -> values[row];
+      }
+    },
+    GRADE_HIGHER_ZERO {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.gradeHigherZero;
+        return row -> values[row];
+      }
+    },
+    TOTAL_HOURS {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.totalHours;
+        return row -> values[row];
+      }
+    },
+    MEDIAN_HOURS_CERTIFICATION {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.medianHoursCertification;
+        return row -> values[row];
+      }
+    },
+    MEDIAN_AGE {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.medianAge;
+        return row -> values[row];
+      }
+    },
+    PERCENT_MALE {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentMale;
+        return row -> values[row];
+      }
+    },
+    PERCENT_FEMALE {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentFemale;
+        return row -> values[row];
+      }
+    },
+    PERCENT_DEGREE {
+      @Override
+      RowValues reader(CourseTable table) {
+        double[] values = table.percentDegree;
+        return row -> values[row];
+      }
+    };
+
+    abstract RowValues reader(CourseTable table);
+  }
+
+  /**
+   * One aggregate of a group: {@code count()} or a function of a numeric column.
+   */
+  public static final class Aggregate {
+    enum Function {
+      COUNT, SUM, AVG, MIN, MAX, MEDIAN
+    }
+
+    final Function function;
+    final Column column;
+
+    private Aggregate(Function function, Column column) {
+      this.function = function;
+      this.column = column;
+    }
+
+    public static Aggregate count() {
+      return new Aggregate(Function.COUNT, null);
+    }
+
+    public static Aggregate sum(Column column) {
+      return new Aggregate(Function.SUM, column);
+    }
+
+    public static Aggregate avg(Column column) {
+      return new Aggregate(Function.AVG, column);
+    }
+
+    public static Aggregate min(Column column) {
+      return new Aggregate(Function.MIN, column);
+    }
+
+    public static Aggregate max(Column column) {
+      return new Aggregate(Function.MAX, column);
+    }
+
+    /**
+     * The middle value of the group, or the mean of the two middle values when the group has an even size.
+     */
+    public static Aggregate median(Column column) {
+      return new Aggregate(Function.MEDIAN, column);
+    }
+
+    @Override
+    public String toString() {
+      return column == null ? "count()" : function.name().toLowerCase() + "(" + column.name().toLowerCase() + ")";
+    }
+  }
+
+  /**
+   * One result group: its key values (strings, or an {@code Integer} for {@link Key#YEAR}) in group-by order
+   * and its aggregates in the order they were requested.
+   */
+  public static final class Row {
+    private final List<Object> keys;
+    private final double[] values;
+
+    Row(List<Object> keys, double[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    public List<Object> keys() {
+      return keys;
+    }
+
+    public Object key(int index) {
+      return keys.get(index);
+    }
+
+    public double value(int index) {
+      return values[index];
+    }
+
+    @Override
+    public String toString() {
+      return keys + "=" + Arrays.toString(values);
+    }
+  }
+
+  interface RowValues {
+    double at(int row);
+  }
+
+  private final CourseTable table;
+  private final List<Key> textFilterKeys = new ArrayList<>();
+  private final List<Predicate<String>> textFilters = new ArrayList<>();
+  private final List<Column> numericFilterColumns = new ArrayList<>();
+  private final List<DoublePredicate> numericFilters = new ArrayList<>();
+  private final List<Key> groupKeys = new ArrayList<>();
+  private final List<Aggregate> aggregates = new ArrayList<>();
+  private final List<Comparator<Row>> order = new ArrayList<>();
+  private int limit = Integer.MAX_VALUE;
+
+  CourseQuery(CourseTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Keeps rows whose {@code key} satisfies {@code predicate}; for {@link Key#INSTRUCTOR}, rows with at least
+   * one matching instructor, and for {@link Key#YEAR}, the year as a decimal string.
+   */
+  public CourseQuery where(Key key, Predicate<String> predicate) {
+    textFilterKeys.add(key);
+    textFilters.add(predicate);
+    return this;
+  }
+
+  public CourseQuery where(Column column, DoublePredicate predicate) {
+    numericFilterColumns.add(column);
+    numericFilters.add(predicate);
+    return this;
+  }
+
+  public CourseQuery groupBy(Key... keys) {
+    groupKeys.addAll(Arrays.asList(keys));
+    return this;
+  }
+
+  public CourseQuery aggregate(Aggregate... functions) {
+    aggregates.addAll(Arrays.asList(functions));
+    return this;
+  }
+
+  public CourseQuery orderByValue(int aggregate, boolean descending) {
+    Comparator<Row> byValue = (a, b) -> Double.compare(a.values[aggregate], b.values[aggregate]);
+    order.add(descending ? byValue.reversed() : byValue);
+    return this;
+  }
+
+  public CourseQuery orderByKey(int key, boolean descending) {
+    Comparator<Row> byKey = (a, b) -> compareKeys(a.keys.get(key), b.keys.get(key));
+    order.add(descending ? byKey.reversed() : byKey);
+    return this;
+  }
+
+  public CourseQuery limit(int rows) {
+    if (rows < 0) {
+      throw new IllegalArgumentException("limit must not be negative: " + rows);
+    }
+    limit = rows;
+    return this;
+  }
+
+  public List<Row> execute() {
+    int size = table.size;
+    int minYear = Integer.MAX_VALUE;
+    int maxYear = Integer.MIN_VALUE;
+    for (int row = 0; row < size; row++) {
+      minYear = Math.min(minYear, table.year[row]);
+      maxYear = Math.max(maxYear, table.year[row]);
+    }
+    Domain[] filterDomains = new Domain[textFilterKeys.size()];
+    boolean[][] allowed = new boolean[filterDomains.length][];
+    for (int i = 0; i < filterDomains.length; i++) {
+      filterDomains[i] = new Domain(textFilterKeys.get(i), table, minYear, maxYear);
+      allowed[i] = new boolean[filterDomains[i].cardinality];
+      for (int code = 0; code < allowed[i].length; code++) {
+        allowed[i][code] = textFilters.get(i).test(filterDomains[i].decode(code).toString());
+      }
+    }
+    RowValues[] filterValues = new RowValues[numericFilterColumns.size()];
+    for (int i = 0; i < filterValues.length; i++) {
+      filterValues[i] = numericFilterColumns.get(i).reader(table);
+    }
+    Domain[] groupDomains = new Domain[groupKeys.size()];
+    for (int i = 0; i < groupDomains.length; i++) {
+      groupDomains[i] = new Domain(groupKeys.get(i), table, minYear, maxYear);
+    }
+    int instructorKey = groupKeys.indexOf(Key.INSTRUCTOR);
+    long instructorWeight = 1;
+    for (int i = groupDomains.length - 1; i > instructorKey && instructorKey >= 0; i--) {
+      instructorWeight = Math.multiplyExact(instructorWeight, groupDomains[i].cardinality);
+    }
+    // a row passes an instructor filter if any of its instructors does, but only those get its groups
+    List<boolean[]> instructorFilters = new ArrayList<>();
+    for (int i = 0; i < filterDomains.length && instructorKey >= 0; i++) {
+      if (filterDomains[i].codes == null) {
+        instructorFilters.add(allowed[i]);
+      }
+    }
+
+    Accumulators accumulators = new Accumulators(aggregates, table);
+    GroupIds groups = new GroupIds();
+    for (int row = 0; row < size; row++) {
+      if (!matches(row, filterDomains, allowed, filterValues)) {
+        continue;
+      }
+      long packed = 0;
+      for (Domain domain : groupDomains) {
+        int code = domain.codes == null ? 0 : domain.codes[row] - domain.offset;
+        packed = Math.addExact(Math.multiplyExact(packed, domain.cardinality), code);
+      }
+      if (instructorKey < 0) {
+        accumulators.add(groups.idOf(packed), row);
+      } else {
+        for (int instructor : table.instructorCodesOf(row)) {
+          if (allowsInstructor(instructorFilters, instructor)) {
+            accumulators.add(groups.idOf(packed + instructor * instructorWeight), row);
+          }
+        }
+      }
+    }
+
+    List<Row> rows = new ArrayList<>(groups.size());
+    for (int group = 0; group < groups.size(); group++) {
+      long packed = groups.keyOf(group);
+      Object[] keys = new Object[groupDomains.length];
+      for (int i = keys.length - 1; i >= 0; i--) {
+        keys[i] = groupDomains[i].decode((int) (packed % groupDomains[i].cardinality));
+        packed /= groupDomains[i].cardinality;
+      }
+      rows.add(new Row(Collections.unmodifiableList(Arrays.asList(keys)), accumulators.result(group)));
+    }
+    Comparator<Row> comparator = (a, b) -> 0;
+    for (Comparator<Row> term : order) {
+      comparator = comparator.thenComparing(term);
+    }
+    for (int i = 0; i < groupKeys.size(); i++) {
+      int key = i;
+      comparator = comparator.thenComparing((a, b) -> compareKeys(a.keys.get(key), b.keys.get(key)));
+    }
+    rows.sort(comparator);
+    return rows.size() > limit ? List.copyOf(rows.subList(0, limit)) : List.copyOf(rows);
+  }
+
+  private boolean matches(int row, Domain[] filterDomains, boolean[][] allowed, RowValues[] filterValues) {
+    for (int i = 0; i < allowed.length; i++) {
+      Domain domain = filterDomains[i];
+      if (domain.codes != null) {
+        if (!allowed[i][domain.codes[row] - domain.offset]) {
+          return false;
+        }
+      } else {
+        boolean any = false;
+        for (int instructor : table.instructorCodesOf(row)) {
+          any |= allowed[i][instructor];
+        }
+        if (!any) {
+          return false;
+        }
+      }
+    }
+    for (int i = 0; i < filterValues.length; i++) {
+      if (!numericFilters.get(i).test(filterValues[i].at(row))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean allowsInstructor(List<boolean[]> instructorFilters, int instructor) {
+    for (boolean[] allowed : instructorFilters) {
+      if (!allowed[instructor]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareKeys(Object a, Object b) {
+    return ((Comparable<Object>) a).compareTo(b);
+  }
+
+  /**
+   * Per-group running state of every aggregate, in growable primitive arrays.
+   */
+  private static final class Accumulators {
+    private final Aggregate.Function[] functions;
+    private final RowValues[] values;
+    private double[][] state;
+    private long[] count = new long[16];
+    private double[][][] samples;
+    private int[][] sampleCount;
+
+    Accumulators(List<Aggregate> aggregates, CourseTable table) {
+      functions = new Aggregate.Function[aggregates.size()];
+      values = new RowValues[aggregates.size()];
+      state = new double[aggregates.size()][16];
+      samples = new double[aggregates.size()][][];
+      sampleCount = new int[aggregates.size()][];
+      for (int i = 0; i < functions.length; i++) {
+        functions[i] = aggregates.get(i).function;
+        values[i] = functions[i] == Aggregate.Function.COUNT ? null : aggregates.get(i).column.reader(table);
+        if (functions[i] == Aggregate.Function.MEDIAN) {
+          samples[i] = new double[16][];
+          sampleCount[i] = new int[16];
+        }
+      }
+    }
+
+    void add(int group, int row) {
+      if (group == count.length) {
+        grow(group * 2);
+      }
+      long seen = count[group]++;
+      for (int i = 0; i < functions.length; i++) {
+        switch (functions[i]) {
+          case COUNT:
+            break;
+          case SUM:
+          case AVG:
+            state[i][group] += values[i].at(row);
+            break;
+          case MIN: {
+            double value = values[i].at(row);
+            if (seen == 0 || Double.compare(value, state[i][group]) < 0) {
+              state[i][group] = value;
+            }
+            break;
+          }
+          case MAX: {
+            double value = values[i].at(row);
+            if (seen == 0 || Double.compare(value, state[i][group]) > 0) {
+              state[i][group] = value;
+            }
+            break;
+          }
+          default: {
+            double[] groupSamples = samples[i][group];
+            int n = sampleCount[i][group];
+            if (groupSamples == null) {
+              groupSamples = samples[i][group] = new double[4];
+            } else if (n == groupSamples.length) {
+              groupSamples = samples[i][group] = Arrays.copyOf(groupSamples, n * 2);
+            }
+            groupSamples[n] = values[i].at(row);
+            sampleCount[i][group] = n + 1;
+          }
+        }
+      }
+    }
+
+    double[] result(int group) {
+      double[] result = new double[functions.length];
+      for (int i = 0; i < functions.length; i++) {
+        switch (functions[i]) {
+          case COUNT:
+            result[i] = count[group];
+            break;
+          case AVG:
+            result[i] = state[i][group] / count[group];
+            break;
+          case MEDIAN: {
+            int n = sampleCount[i][group];
+            double[] sorted = Arrays.copyOf(samples[i][group], n);
+            Arrays.sort(sorted);
+            result[i] = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+            break;
+          }
+          default:
+            result[i] = state[i][group];
+        }
+      }
+      return result;
+    }
+
+    private void grow(int capacity) {
+      count = Arrays.copyOf(count, capacity);
+      for (int i = 0; i < functions.length; i++) {
+        state[i] = Arrays.copyOf(state[i], capacity);
+        if (samples[i] != null) {
+          samples[i] = Arrays.copyOf(samples[i], capacity);
+          sampleCount[i] = Arrays.copyOf(sampleCount[i], capacity);
+        }
+      }
+    }
+  }
+
+  /**
+   * The values a key takes in a table as dense codes {@code 0 .. cardinality - 1}: dictionary codes, or
+   * years minus the smallest year.
+   */
+  private static final class Domain {
+    final int[] codes;
+    final int offset;
+    final int cardinality;
+    private final Key key;
+    private final StringDictionary dictionary;
+
+    Domain(Key key, CourseTable table, int minYear, int maxYear) {
+      this.key = key;
+      codes = key.codes(table);
+      dictionary = key.dictionary(table);
+      if (key == Key.YEAR) {
+        offset = minYear;
+        cardinality = Math.max(1, maxYear - minYear + 1);
+      } else {
+        offset = 0;
+        cardinality = Math.max(1, dictionary.size());
+      }
+    }
+
+    Object decode(int code) {
+      return key == Key.YEAR ? Integer.valueOf(code + offset) : dictionary.decode(code);
+    }
+  }
+
+  /**
+   * Dense group ids for packed group keys, in first-seen order, over an open-addressing table.
+   */
+  private static final class GroupIds {
+    private long[] slotKeys = new long[64];
+    private int[] slotIds = new int[64];
+    private long[] keys = new long[16];
+    private int size;
+
+    int idOf(long key) {
+      int mask = slotKeys.length - 1;
+      int slot = slot(key, mask);
+      for (; slotIds[slot] != 0; slot = (slot + 1) & mask) {
+        if (slotKeys[slot] == key) {
+          return slotIds[slot] - 1;
+        }
+      }
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+      }
+      keys[size] = key;
+      slotKeys[slot] = key;
+      slotIds[slot] = ++size;
+      if (2 * size > slotKeys.length) {
+        rehash();
+      }
+      return size - 1;
+    }
+
+    long keyOf(int id) {
+      return keys[id];
+    }
+
+    int size() {
+      return size;
+    }
+
+    private void rehash() {
+      slotKeys = new long[slotKeys.length * 2];
+      slotIds = new int[slotKeys.length];
+      int mask = slotKeys.length - 1;
+      for (int id = 0; id < size; id++) {
+        int slot = slot(keys[id], mask);
+        while (slotIds[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slotKeys[slot] = keys[id];
+        slotIds[slot] = id + 1;
+      }
+    }
+
+    private static int slot(long key, int mask) {
+      long mixed = key * 0x9E3779B97F4A7C15L;
+      return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate aggregates for catalogs too large to answer exactly, in memory that does not grow with the
+ * number of rows. Every answer is an {@link Estimate} with its error bound:
+ *
+ * <ul>
+ *   <li>the largest participant totals per institution and subject come from a {@link CountMinSketch}
+ *       (epsilon 0.0005, delta 0.01) with a fixed set of heavy-hitter candidates; they never undercount
+ *       and, with probability 0.99, overcount by at most 0.0005 times the total participants;</li>
+ *   <li>participant and total-hours quantiles come from {@link TDigest}s with compression 200; their
+ *       interval spans the digest's rank error around the quantile, a heuristic bound with no stated
+ *       confidence;</li>
+ *   <li>distinct instructors per institution come from one {@link HyperLogLog} per institution with 4096
+ *       registers, 1.6% relative standard error.</li>
+ * </ul>
+ *
+ * <p>{@link CourseStream#sketches()} builds them during its single pass over the file.
+ */
+public final class CourseSketches {
+  static final double EPSILON = 0.0005;
+  static final double DELTA = 0.01;
+  static final int CANDIDATES = 64;
+  static final double COMPRESSION = 200;
+  static final int PRECISION = 12;
+
+  private final CourseTable table;
+  private final CountMinSketch participantsByInstAndSubject = new CountMinSketch(EPSILON, DELTA);
+  private final long[] candidateKeys = new long[CANDIDATES];
+  private final long[] candidateEstimates = new long[CANDIDATES];
+  private int candidates;
+  private final TDigest participants = new TDigest(COMPRESSION);
+  private final TDigest totalHours = new TDigest(COMPRESSION);
+  private HyperLogLog[] instructorsByInst = new HyperLogLog[16];
+  private long[] nameHashes = new long[16];
+
+  CourseSketches(CourseTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Sketches of every row currently in {@code table}.
+   */
+  static CourseSketches of(CourseTable table) {
+    CourseSketches sketches = new CourseSketches(table);
+    for (int row = 0; row < table.size; row++) {
+      sketches.add(row);
+    }
+    return sketches;
+  }
+
+  void add(int row) {
+    int institution = table.institution[row];
+    int participantCount = table.participants[row];
+    long key = (long) institution << 32 | table.subject[row];
+    participantsByInstAndSubject.add(key, participantCount);
+    offerCandidate(key, participantsByInstAndSubject.estimate(key));
+    participants.add(participantCount);
+    totalHours.add(table.totalHours[row]);
+
+    if (institution >= instructorsByInst.length) {
+      instructorsByInst = Arrays.copyOf(instructorsByInst, Math.max(institution + 1, instructorsByInst.length * 2));
+    }
+    HyperLogLog instructors = instructorsByInst[institution];
+    if (instructors == null) {
+      instructors = instructorsByInst[institution] = new HyperLogLog(PRECISION);
+    }
+    for (int name : table.instructorCodesOf(row)) {
+      instructors.add(nameHash(name));
+    }
+  }
+
+  /**
+   * The {@code k} institution-subject pairs with the most participants, largest first, keyed like
+   * {@link OnlineCoursesAnalyzer#getPtcpCountByInstAndSubject()}. At most {@value #CANDIDATES} pairs are
+   * tracked. Each total lies between its estimate minus epsilon times all participants and the estimate.
+   */
+  public List<Estimate> topPtcpCountByInstAndSubject(int k) {
+    double error = participantsByInstAndSubject.errorBound();
+    double confidence = participantsByInstAndSubject.confidence();
+    List<Estimate> top = new ArrayList<>(candidates);
+    for (int i = 0; i < candidates; i++) {
+      long key = candidateKeys[i];
+      long estimate = participantsByInstAndSubject.estimate(key);
+      String name = table.institutions.decode((int) (key >>> 32)) + "-" + table.subjects.decode((int) key);
+      top.add(new Estimate(name, estimate, Math.max(0, estimate - error), estimate, confidence));
+    }
+    top.sort(Comparator.comparingDouble(Estimate::getValue).reversed().thenComparing(Estimate::getKey));
+    return List.copyOf(top.subList(0, Math.min(k, top.size())));
+  }
+
+  public Estimate participantsQuantile(double q) {
+    return quantile(participants, q);
+  }
+
+  public Estimate totalHoursQuantile(double q) {
+    return quantile(totalHours, q);
+  }
+
+  /**
+   * The number of distinct instructor names per institution, by institution name, with a two standard error
+   * interval.
+   */
+  public Map<String, Estimate> distinctInstructorsByInst() {
+    String[] names = new String[Math.min(instructorsByInst.length, table.institutions.size())];
+    for (int institution = 0; institution < names.length; institution++) {
+      names[institution] = table.institutions.decode(institution);
+    }
+    Integer[] order = new Integer[names.length];
+    Arrays.setAll(order, i -> i);
+    Arrays.sort(order, Comparator.comparing(i -> names[i]));
+    Map<String, Estimate> byInst = new LinkedHashMap<>();
+    for (int institution : order) {
+      HyperLogLog instructors = instructorsByInst[institution];
+      if (instructors != null) {
+        double estimate = instructors.estimate();
+        double error = 2 * instructors.relativeStandardError() * estimate;
+        byInst.put(names[institution],
+            new Estimate(names[institution], estimate, Math.max(0, estimate - error), estimate + error, 0.95));
+      }
+    }
+    return byInst;
+  }
+
+  /**
+   * Keeps {@code key} among the candidates if it is one already, if there is room, or if its estimate beats
+   * the smallest candidate's, which it then replaces.
+   */
+  private void offerCandidate(long key, long estimate) {
+    int smallest = -1;
+    for (int i = 0; i < candidates; i++) {
+      if (candidateKeys[i] == key) {
+        candidateEstimates[i] = estimate;
+        return;
+      }
+      if (smallest < 0 || candidateEstimates[i] < candidateEstimates[smallest]) {
+        smallest = i;
+      }
+    }
+    if (candidates < CANDIDATES) {
+      candidateKeys[candidates] = key;
+      candidateEstimates[candidates++] = estimate;
+    } else if (estimate > candidateEstimates[smallest]) {
+      candidateKeys[smallest] = key;
+      candidateEstimates[smallest] = estimate;
+    }
+  }
+
+  private long nameHash(int name) {
+    if (name >= nameHashes.length) {
+      nameHashes = Arrays.copyOf(nameHashes, Math.max(name + 1, nameHashes.length * 2));
+    }
+    long hash = nameHashes[name];
+    if (hash == 0) {
+      hash = HyperLogLog.hash(table.instructorNames.decode(name));
+      // 0 marks an uncached name; a name that truly hashes to 0 is simply hashed again every time
+      nameHashes[name] = hash;
+    }
+    return hash;
+  }
+
+  private static Estimate quantile(TDigest digest, double q) {
+    if (!(q >= 0 && q <= 1)) {
+      throw new IllegalArgumentException("quantile must be in [0, 1]: " + q);
+    }
+    double error = digest.rankError(q);
+    String key = "p" + (q * 100 == Math.rint(q * 100) ? String.valueOf((int) (q * 100)) : String.valueOf(q * 100));
+    return new Estimate(key, digest.quantile(q), digest.quantile(Math.max(0, q - error)),
+        digest.quantile(Math.min(1, q + error)), Double.NaN);
+  }
+}
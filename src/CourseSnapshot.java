@@ -0,0 +1,354 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Binary image of a {@link CourseTable} so later starts can skip CSV parsing.
+ *
+ * <p>Layout (big-endian): magic, format version, source file size and modification time, row count, the
+ * string dictionaries (count, then length-prefixed UTF-8 values), one fixed-width block per column, and a
+ * CRC32 of everything before it. A snapshot is only used when its version and source fingerprint match and
+ * the checksum is intact; otherwise the caller falls back to the CSV.
+ *
+ * <p>The column blocks can also be used in place: {@link #map} hands them out as views over the mapped file
+ * for {@link OffHeapCourses}.
+ */
+final class CourseSnapshot {
+  static final int MAGIC = 0x4f434153;
+  static final int VERSION = 2;
+  private static final long CHECKSUM_REGION = 1 << 30;
+
+  private CourseSnapshot() {
+  }
+
+  /**
+   * Writes {@code table} as the snapshot of the CSV version {@code source}, which the caller must have
+   * taken before parsing the table so a CSV changed in between is never trusted.
+   */
+  static void write(CourseTable table, Path snapshot, Fingerprint source) throws IOException {
+    int size = table.size;
+    write(snapshot, source, table, size, out -> {
+      for (int[] column : intColumns(table)) {
+        writeInts(out, column, size);
+      }
+      for (double[] column : doubleColumns(table)) {
+        writeDoubles(out, column, size);
+      }
+    });
+  }
+
+  /**
+   * Writes the snapshot of {@code source} without holding its rows: the CSV is parsed in batches whose
+   * columns are appended to one temporary file per column, which are then concatenated behind the
+   * dictionaries. Heap use is bounded by the batch size and the distinct strings. The snapshot is stamped
+   * with the version of {@code source} seen before streaming starts, so a CSV changed meanwhile never
+   * matches it.
+   */
+  static void writeFromCsv(Path source, Path snapshot) throws IOException {
+    Fingerprint fingerprint = Fingerprint.of(source);
+    CourseTable window = new CourseTable();
+    Path directory = snapshot.toAbsolutePath().getParent();
+    Path columnDirectory = Files.createTempDirectory(directory, snapshot.getFileName() + ".columns");
+    int columnCount = intColumns(window).length + doubleColumns(window).length;
+    Path[] columnFiles = new Path[columnCount];
+    DataOutputStream[] columns = new DataOutputStream[columnCount];
+    try {
+      for (int i = 0; i < columnCount; i++) {
+        columnFiles[i] = columnDirectory.resolve(Integer.toString(i));
+        columns[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(columnFiles[i]), 1 << 16));
+      }
+      long[] rows = new long[1];
+      try {
+        CourseStream.readBatches(source, CourseStream.DEFAULT_BATCH_BYTES, window, () -> {
+          try {
+            int i = 0;
+            for (int[] column : intColumns(window)) {
+              writeInts(columns[i++], column, window.size);
+            }
+            for (double[] column : doubleColumns(window)) {
+              writeDoubles(columns[i++], column, window.size);
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+          rows[0] += window.size;
+          window.clearRows();
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      for (DataOutputStream column : columns) {
+        column.close();
+      }
+      if (rows[0] > Integer.MAX_VALUE) {
+        throw new IOException(source + " has more rows than a snapshot holds: " + rows[0]);
+      }
+      write(snapshot, fingerprint, window, (int) rows[0], out -> {
+        for (Path columnFile : columnFiles) {
+          Files.copy(columnFile, out);
+        }
+      });
+    } finally {
+      for (int i = 0; i < columnCount; i++) {
+        if (columns[i] != null) {
+          columns[i].close();
+        }
+        if (columnFiles[i] != null) {
+          Files.deleteIfExists(columnFiles[i]);
+        }
+      }
+      Files.deleteIfExists(columnDirectory);
+    }
+  }
+
+  /**
+   * Writes to a uniquely named temporary file beside {@code snapshot} and moves it into place, so processes
+   * that write the same snapshot at once each replace it with a whole file and the last one wins.
+   */
+  private static void write(Path snapshot, Fingerprint source, CourseTable dictionaries, int size,
+                            ColumnWriter columns) throws IOException {
+    Path partial = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName() + ".", ".tmp");
+    try {
+      CRC32 crc = new CRC32();
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          new CheckedOutputStream(Files.newOutputStream(partial), crc), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(source.size);
+        out.writeLong(source.modified);
+        out.writeInt(size);
+        for (StringDictionary dictionary : dictionaries(dictionaries)) {
+          out.writeInt(dictionary.size());
+          for (int code = 0; code < dictionary.size(); code++) {
+            byte[] bytes = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+          }
+        }
+        columns.writeTo(out);
+        out.flush();
+        out.writeLong(crc.getValue());
+      }
+      Files.move(partial, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(partial);
+    }
+  }
+
+  private static void writeInts(DataOutputStream out, int[] column, int size) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(size * Integer.BYTES);
+    block.asIntBuffer().put(column, 0, size);
+    out.write(block.array());
+  }
+
+  private static void writeDoubles(DataOutputStream out, double[] column, int size) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(size * Double.BYTES);
+    block.asDoubleBuffer().put(column, 0, size);
+    out.write(block.array());
+  }
+
+  /**
+   * Returns the table stored in {@code snapshot}, or {@code null} when it is missing, written by another
+   * format version, taken from a different version of {@code source}, or corrupt.
+   */
+  static CourseTable read(Path snapshot, Path source) throws IOException {
+    Fingerprint fingerprint = Fingerprint.ofExisting(source);
+    return fingerprint == null ? null : read(snapshot, fingerprint);
+  }
+
+  static CourseTable read(Path snapshot, Fingerprint source) throws IOException {
+    MappedColumns columns = map(snapshot, source);
+    if (columns == null) {
+      return null;
+    }
+    CourseTable table = columns.dictionaries;
+    columns.copyRows(0, columns.size, table);
+    return table;
+  }
+
+  /**
+   * The dictionaries of {@code snapshot}, loaded into an otherwise empty table, and a read-only view of
+   * every column mapped straight from the file, or {@code null} in the cases {@link #read} returns it for.
+   * Each column is mapped on its own, so the file may exceed 2 GB as long as a single column does not.
+   */
+  static MappedColumns map(Path snapshot, Path source) throws IOException {
+    Fingerprint fingerprint = Fingerprint.ofExisting(source);
+    return fingerprint == null ? null : map(snapshot, fingerprint);
+  }
+
+  static MappedColumns map(Path snapshot, Fingerprint source) throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+      long length = channel.size();
+      if (length < 28 + Long.BYTES) {
+        return null;
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, Integer.MAX_VALUE));
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+          || buffer.getLong() != source.size
+          || buffer.getLong() != source.modified
+          || !checksumMatches(channel, length)) {
+        return null;
+      }
+      int size = buffer.getInt();
+      CourseTable table = new CourseTable();
+      for (StringDictionary dictionary : dictionaries(table)) {
+        readDictionary(buffer, dictionary);
+      }
+      for (int list = 0; list < table.instructorLists.size(); list++) {
+        table.splitInstructors(list);
+      }
+      long offset = buffer.position();
+      IntBuffer[] ints = new IntBuffer[intColumns(table).length];
+      for (int i = 0; i < ints.length; i++) {
+        ints[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) size * Integer.BYTES).asIntBuffer();
+        offset += (long) size * Integer.BYTES;
+      }
+      DoubleBuffer[] doubles = new DoubleBuffer[doubleColumns(table).length];
+      for (int i = 0; i < doubles.length; i++) {
+        doubles[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) size * Double.BYTES).asDoubleBuffer();
+        offset += (long) size * Double.BYTES;
+      }
+      return new MappedColumns(table, size, ints, doubles);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private static boolean checksumMatches(FileChannel channel, long length) throws IOException {
+    CRC32 crc = new CRC32();
+    long end = length - Long.BYTES;
+    for (long position = 0; position < end; position += CHECKSUM_REGION) {
+      crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHECKSUM_REGION, end - position)));
+    }
+    return crc.getValue() == channel.map(FileChannel.MapMode.READ_ONLY, end, Long.BYTES).getLong();
+  }
+
+  private static StringDictionary[] dictionaries(CourseTable table) {
+    return new StringDictionary[] {
+        table.institutions, table.subjects, table.numbers, table.titles, table.instructorLists
+    };
+  }
+
+  private static int[][] intColumns(CourseTable table) {
+    return new int[][] {
+        table.institution, table.number, table.launchDay, table.title, table.instructors, table.subject, table.year,
+        table.honorCode, table.participants, table.audited, table.certified
+    };
+  }
+
+  private static double[][] doubleColumns(CourseTable table) {
+    return new double[][] {
+        table.percentAudited, table.percentCertified, table.percentCertified50, table.percentVideo,
+        table.percentForum, table.gradeHigherZero, table.totalHours, table.medianHoursCertification,
+        table.medianAge, table.percentMale, table.percentFemale, table.percentDegree
+    };
+  }
+
+  /**
+   * The version of a source CSV a snapshot was taken from: its path, size and modification time.
+   */
+  static final class Fingerprint {
+    final Path path;
+    final long size;
+    final long modified;
+
+    private Fingerprint(Path path, long size, long modified) {
+      this.path = path;
+      this.size = size;
+      this.modified = modified;
+    }
+
+    static Fingerprint of(Path source) throws IOException {
+      return new Fingerprint(source.toAbsolutePath().normalize(), Files.size(source),
+          Files.getLastModifiedTime(source).toMillis());
+    }
+
+    /**
+     * The fingerprint of {@code source}, or {@code null} when it does not exist.
+     */
+    static Fingerprint ofExisting(Path source) throws IOException {
+      try {
+        return of(source);
+      } catch (NoSuchFileException e) {
+        return null;
+      }
+    }
+
+    boolean isOf(Path source) {
+      return path.equals(source.toAbsolutePath().normalize());
+    }
+  }
+
+  private interface ColumnWriter {
+    void writeTo(DataOutputStream out) throws IOException;
+  }
+
+  /**
+   * A snapshot's columns as big-endian views over the mapped file, in the order of {@link #intColumns} and
+   * {@link #doubleColumns}. They live outside the heap and, being read-only mappings, share the page cache
+   * with every other process that maps the same file. Reads use absolute indexes, so any number of threads
+   * can read them at once.
+   */
+  static final class MappedColumns {
+    final CourseTable dictionaries;
+    final int size;
+    final IntBuffer subject;
+    final IntBuffer title;
+    final DoubleBuffer percentAudited;
+    final DoubleBuffer totalHours;
+    private final IntBuffer[] ints;
+    private final DoubleBuffer[] doubles;
+
+    private MappedColumns(CourseTable dictionaries, int size, IntBuffer[] ints, DoubleBuffer[] doubles) {
+      this.dictionaries = dictionaries;
+      this.size = size;
+      this.ints = ints;
+      this.doubles = doubles;
+      title = ints[3];
+      subject = ints[5];
+      totalHours = doubles[6];
+      percentAudited = doubles[0];
+    }
+
+    /**
+     * Replaces the rows of {@code into}, which must share this snapshot's dictionaries, with rows
+     * {@code [from, to)}.
+     */
+    void copyRows(int from, int to, CourseTable into) {
+      into.clearRows();
+      into.reserve(to - from);
+      int[][] intTargets = intColumns(into);
+      for (int i = 0; i < ints.length; i++) {
+        ints[i].get(from, intTargets[i], 0, to - from);
+      }
+      double[][] doubleTargets = doubleColumns(into);
+      for (int i = 0; i < doubles.length; i++) {
+        doubles[i].get(from, doubleTargets[i], 0, to - from);
+      }
+      into.size = to - from;
+    }
+  }
+
+  private static void readDictionary(ByteBuffer buffer, StringDictionary dictionary) {
+    int count = buffer.getInt();
+    for (int code = 0; code < count; code++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      dictionary.encode(new String(bytes, StandardCharsets.UTF_8));
+    }
+  }
+}
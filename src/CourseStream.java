@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Answers the analyzer queries in one sequential pass over a course CSV without keeping its rows, for
+ * exports larger than the heap. Register the queries, then {@link #run()}; each registration returns an
+ * {@link Answer} that holds the same result {@link OnlineCoursesAnalyzer} would give once the pass is done.
+ *
+ * <p>The file is read in batches of whole records into one reused {@link CourseTable}. Its dictionaries
+ * persist across batches while its rows are dropped after each one, and every registered query folds the
+ * batch into state keyed by dictionary code: participant sums per institution and subject, title codes per
+ * instructor, the best metric values per title, the demographic sums per course number, or the set of
+ * matching titles. Memory therefore grows with the number of distinct keys, not rows.
+ */
+public final class CourseStream {
+  static final int DEFAULT_BATCH_BYTES = 4 << 20;
+
+  private final Path csv;
+  private final int batchBytes;
+  private final List<Runnable> finishers = new ArrayList<>();
+  private final List<Search> searches = new ArrayList<>();
+  private final CourseTable window;
+  private final CourseAggregates aggregates;
+  private final CourseProfileIndex profiles;
+  private boolean participants;
+  private boolean instructors;
+  private boolean metrics;
+  private boolean recommends;
+  private CourseSketches sketches;
+  private boolean ran;
+
+  public CourseStream(Path csv) {
+    this(csv, DEFAULT_BATCH_BYTES);
+  }
+
+  CourseStream(Path csv, int batchBytes) {
+    this.csv = csv;
+    this.batchBytes = batchBytes;
+    window = new CourseTable();
+    aggregates = new CourseAggregates(window);
+    profiles = new CourseProfileIndex(window);
+  }
+
+  public Answer<Map<String, Integer>> ptcpCountByInst() {
+    participants = true;
+    return answer(() -> OnlineCoursesAnalyzer.computePtcpCountByInst(window, aggregates));
+  }
+
+  public Answer<Map<String, Integer>> ptcpCountByInstAndSubject() {
+    participants = true;
+    return answer(() -> OnlineCoursesAnalyzer.computePtcpCountByInstAndSubject(window, aggregates));
+  }
+
+  public Answer<Map<String, List<List<String>>>> courseListOfInstructor() {
+    instructors = true;
+    return answer(() -> OnlineCoursesAnalyzer.computeCourseListOfInstructor(window, aggregates));
+  }
+
+  public Answer<List<String>> courses(int topK, String by) {
+    CourseMetric metric = CourseMetric.of(by);
+    metrics = true;
+    return answer(() -> OnlineCoursesAnalyzer.computeCourses(window, aggregates, topK, metric));
+  }
+
+  public Answer<List<String>> searchCourses(String courseSubject, double percentAudited, double totalCourseHours) {
+    Search search = new Search(courseSubject, percentAudited, totalCourseHours);
+    searches.add(search);
+    return answer(() -> search.result(window));
+  }
+
+  public Answer<List<String>> recommendCourses(int age, int gender, int isBachelorOrHigher) {
+    recommends = true;
+    return answer(() -> List.copyOf(profiles.recommend(age, gender, isBachelorOrHigher, 10)));
+  }
+
+  /**
+   * Approximate aggregates with error bounds, see {@link CourseSketches}.
+   */
+  public Answer<CourseSketches> sketches() {
+    if (sketches == null) {
+      sketches = new CourseSketches(window);
+    }
+    CourseSketches built = sketches;
+    return answer(() -> built);
+  }
+
+  /**
+   * Reads the file once and fills in every registered answer. A stream runs only once.
+   */
+  public void run() throws IOException {
+    if (ran) {
+      throw new IllegalStateException("stream already ran");
+    }
+    ran = true;
+    readBatches(csv, batchBytes, window, this::fold);
+    for (Runnable finisher : finishers) {
+      finisher.run();
+    }
+  }
+
+  /**
+   * Parses {@code csv} in batches of whole records of about {@code batchBytes} into {@code window}, calling
+   * {@code onBatch} after each one. The callback is expected to consume the batch's rows and clear them.
+   */
+  static void readBatches(Path csv, int batchBytes, CourseTable window, Runnable onBatch) throws IOException {
+    try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(batchBytes);
+      boolean header = true;
+      boolean eof = false;
+      while (!eof) {
+        eof = channel.read(buffer) < 0;
+        buffer.flip();
+        if (header) {
+          int dataStart = ParallelCsvLoader.firstRecordBoundary(buffer, false);
+          if (dataStart < 0 && !eof) {
+            buffer = readMore(buffer);
+            continue;
+          }
+          header = false;
+          buffer.position(dataStart < 0 ? buffer.limit() : dataStart);
+        }
+        int end = eof ? buffer.limit() : lastRecordBoundary(buffer, buffer.position());
+        if (end < 0) {
+          buffer = readMore(buffer);
+          continue;
+        }
+        new CourseCsvParser(buffer, buffer.position(), end).parseInto(window);
+        onBatch.run();
+        buffer.position(end);
+        buffer.compact();
+      }
+    }
+  }
+
+  private void fold() {
+    for (int row = 0; row < window.size; row++) {
+      if (participants) {
+        aggregates.addParticipants(row);
+      }
+      if (instructors) {
+        aggregates.addInstructors(row);
+      }
+      if (metrics) {
+        aggregates.addMetrics(row);
+      }
+      if (recommends) {
+        profiles.add(row);
+      }
+      if (sketches != null) {
+        sketches.add(row);
+      }
+      for (Search search : searches) {
+        search.add(window, row);
+      }
+    }
+    window.clearRows();
+  }
+
+  private <T> Answer<T> answer(Supplier<T> compute) {
+    if (ran) {
+      throw new IllegalStateException("stream already ran");
+    }
+    Answer<T> answer = new Answer<>();
+    finishers.add(() -> answer.value = compute.get());
+    return answer;
+  }
+
+  /**
+   * Offset just past the last newline outside quotes, for a buffer that starts on a record boundary at
+   * {@code start}, or -1 if no record ends in it.
+   */
+  private static int lastRecordBoundary(ByteBuffer buffer, int start) {
+    int boundary = -1;
+    boolean inQuote = false;
+    for (int i = start, n = buffer.limit(); i < n; i++) {
+      byte b = buffer.get(i);
+      if (b == '"') {
+        inQuote = !inQuote;
+      } else if (b == '\n' && !inQuote) {
+        boundary = i + 1;
+      }
+    }
+    return boundary;
+  }
+
+  /**
+   * {@code buffer} with its unread bytes moved to the front, ready for the next read, or a buffer twice the
+   * size when the unread bytes already fill it because a single record is longer than the buffer.
+   */
+  private static ByteBuffer readMore(ByteBuffer buffer) {
+    if (buffer.remaining() < buffer.capacity()) {
+      return buffer.compact();
+    }
+    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+    larger.put(buffer);
+    return larger;
+  }
+
+  /**
+   * The result of one registered query, available after {@link CourseStream#run()}.
+   */
+  public static final class Answer<T> {
+    private T value;
+
+    private Answer() {
+    }
+
+    public T get() {
+      if (value == null) {
+        throw new IllegalStateException("stream has not run yet");
+      }
+      return value;
+    }
+  }
+
+  /**
+   * One {@code searchCourses} query: the titles of matching rows, with the subject test cached per subject.
+   */
+  private static final class Search {
+    private static final byte UNKNOWN = 0;
+    private static final byte MATCH = 1;
+    private static final byte NO_MATCH = 2;
+
+    private final String query;
+    private final double percentAudited;
+    private final double totalCourseHours;
+    private byte[] subjectMatches = new byte[16];
+    private final BitSet titles = new BitSet();
+
+    Search(String courseSubject, double percentAudited, double totalCourseHours) {
+      this.query = courseSubject.toLowerCase();
+      this.percentAudited = percentAudited;
+      this.totalCourseHours = totalCourseHours;
+    }
+
+    void add(CourseTable table, int row) {
+      if (table.percentAudited[row] >= percentAudited
+          && table.totalHours[row] <= totalCourseHours
+          && matches(table, table.subject[row])) {
+        titles.set(table.title[row]);
+      }
+    }
+
+    private boolean matches(CourseTable table, int subject) {
+      if (subject >= subjectMatches.length) {
+        subjectMatches = Arrays.copyOf(subjectMatches, Math.max(subject + 1, subjectMatches.length * 2));
+      }
+      if (subjectMatches[subject] == UNKNOWN) {
+        subjectMatches[subject] = table.subjects.decode(subject).toLowerCase().contains(query) ? MATCH : NO_MATCH;
+      }
+      return subjectMatches[subject] == MATCH;
+    }
+
+    List<String> result(CourseTable table) {
+      String[] matched = new String[titles.cardinality()];
+      int i = 0;
+      for (int title = titles.nextSetBit(0); title >= 0; title = titles.nextSetBit(title + 1)) {
+        matched[i++] = table.titles.decode(title);
+      }
+      Arrays.sort(matched);
+      return List.of(matched);
+    }
+  }
+}
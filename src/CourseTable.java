@@ -0,0 +1,385 @@
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented course storage: one primitive array per numeric column and dictionary codes for the
+ * repeated string columns. Row {@code i} of every array describes the same course run.
+ *
+ * <p>The instructors column stores a code for the raw instructor list; each distinct list is split into
+ * instructor name codes once, when it is first seen.
+ *
+ * <p>Rows are only ever appended, never rewritten. {@link #copyForAppend()} relies on that to hand a writer
+ * a table that shares storage with this one while readers keep reading the rows below this table's size.
+ */
+class CourseTable {
+  private static final int INITIAL_CAPACITY = 16;
+
+  final StringDictionary institutions;
+  final StringDictionary subjects;
+  final StringDictionary numbers;
+  final StringDictionary titles;
+  final StringDictionary instructorLists;
+  final StringDictionary instructorNames;
+  int[][] instructorsOfList = new int[INITIAL_CAPACITY][];
+
+  int size;
+  int[] institution;
+  int[] number;
+  int[] launchDay;
+  int[] title;
+  int[] instructors;
+  int[] subject;
+  int[] year;
+  int[] honorCode;
+  int[] participants;
+  int[] audited;
+  int[] certified;
+  double[] percentAudited;
+  double[] percentCertified;
+  double[] percentCertified50;
+  double[] percentVideo;
+  double[] percentForum;
+  double[] gradeHigherZero;
+  double[] totalHours;
+  double[] medianHoursCertification;
+  double[] medianAge;
+  double[] percentMale;
+  double[] percentFemale;
+  double[] percentDegree;
+
+  CourseTable() {
+    this(INITIAL_CAPACITY);
+  }
+
+  CourseTable(int capacity) {
+    institutions = new StringDictionary();
+    subjects = new StringDictionary();
+    numbers = new StringDictionary();
+    titles = new StringDictionary();
+    instructorLists = new StringDictionary();
+    instructorNames = new StringDictionary();
+    capacity = Math.max(capacity, 1);
+    institution = new int[capacity];
+    number = new int[capacity];
+    launchDay = new int[capacity];
+    title = new int[capacity];
+    instructors = new int[capacity];
+    subject = new int[capacity];
+    year = new int[capacity];
+    honorCode = new int[capacity];
+    participants = new int[capacity];
+    audited = new int[capacity];
+    certified = new int[capacity];
+    percentAudited = new double[capacity];
+    percentCertified = new double[capacity];
+    percentCertified50 = new double[capacity];
+    percentVideo = new double[capacity];
+    percentForum = new double[capacity];
+    gradeHigherZero = new double[capacity];
+    totalHours = new double[capacity];
+    medianHoursCertification = new double[capacity];
+    medianAge = new double[capacity];
+    percentMale = new double[capacity];
+    percentFemale = new double[capacity];
+    percentDegree = new double[capacity];
+  }
+
+  private CourseTable(CourseTable base) {
+    institutions = base.institutions.copyForAppend();
+    subjects = base.subjects.copyForAppend();
+    numbers = base.numbers.copyForAppend();
+    titles = base.titles.copyForAppend();
+    instructorLists = base.instructorLists.copyForAppend();
+    instructorNames = base.instructorNames.copyForAppend();
+    instructorsOfList = base.instructorsOfList;
+    size = base.size;
+    institution = base.institution;
+    number = base.number;
+    launchDay = base.launchDay;
+    title = base.title;
+    instructors = base.instructors;
+    subject = base.subject;
+    year = base.year;
+    honorCode = base.honorCode;
+    participants = base.participants;
+    audited = base.audited;
+    certified = base.certified;
+    percentAudited = base.percentAudited;
+    percentCertified = base.percentCertified;
+    percentCertified50 = base.percentCertified50;
+    percentVideo = base.percentVideo;
+    percentForum = base.percentForum;
+    gradeHigherZero = base.gradeHigherZero;
+    totalHours = base.totalHours;
+    medianHoursCertification = base.medianHoursCertification;
+    medianAge = base.medianAge;
+    percentMale = base.percentMale;
+    percentFemale = base.percentFemale;
+    percentDegree = base.percentDegree;
+  }
+
+  static CourseTable of(List<Course> courses) {
+    CourseTable table = new CourseTable(courses.size());
+    for (Course course : courses) {
+      table.add(course);
+    }
+    return table;
+  }
+
+  static int toEpochDay(Date date) {
+    return (int) date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+  }
+
+  /**
+   * Days since 1970-01-01 of the given proleptic Gregorian date. Days past the end of the month roll
+   * over into the next one, as they do for the lenient {@code Date} parser.
+   */
+  static int epochDay(int year, int month, int day) {
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * A table with the same rows that further rows can be appended to while readers keep using this one.
+   * The copy writes into the shared arrays only past this table's size, so only the newest copy of a table
+   * may be appended to.
+   */
+  CourseTable copyForAppend() {
+    return new CourseTable(this);
+  }
+
+  int add(Course course) {
+    int row = addRow();
+    institution[row] = institutions.encode(course.institution);
+    number[row] = numbers.encode(course.number);
+    launchDay[row] = toEpochDay(course.launchDate);
+    title[row] = titles.encode(course.title);
+    instructors[row] = encodeInstructors(course.instructors);
+    subject[row] = subjects.encode(course.subject);
+    year[row] = course.year;
+    honorCode[row] = course.honorCode;
+    participants[row] = course.participants;
+    audited[row] = course.audited;
+    certified[row] = course.certified;
+    percentAudited[row] = course.percentAudited;
+    percentCertified[row] = course.percentCertified;
+    percentCertified50[row] = course.percentCertified50;
+    percentVideo[row] = course.percentVideo;
+    percentForum[row] = course.percentForum;
+    gradeHigherZero[row] = course.gradeHigherZero;
+    totalHours[row] = course.totalHours;
+    medianHoursCertification[row] = course.medianHoursCertification;
+    medianAge[row] = course.medianAge;
+    percentMale[row] = course.percentMale;
+    percentFemale[row] = course.percentFemale;
+    percentDegree[row] = course.percentDegree;
+    return row;
+  }
+
+  /**
+   * Drops every row but keeps the dictionaries and the column capacity, so a table reused for batch after
+   * batch only grows with distinct strings. Not for tables that a copy or a reader shares.
+   */
+  void clearRows() {
+    size = 0;
+  }
+
+  /**
+   * Drops every row and shrinks the columns back to their initial capacity, keeping only the dictionaries.
+   */
+  void dropRows() {
+    size = 0;
+    grow(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Makes room for {@code rows} rows without adding any.
+   */
+  void reserve(int rows) {
+    if (rows > institution.length) {
+      grow(rows);
+    }
+  }
+
+  /**
+   * Reserves the next row and returns it; the caller fills every column.
+   */
+  int addRow() {
+    if (size == institution.length) {
+      grow(size * 2);
+    }
+    return size++;
+  }
+
+  /**
+   * Appends all rows of {@code other}, translating its dictionary codes into this table's.
+   */
+  void appendAll(CourseTable other) {
+    int[] institutionCodes = translate(other.institutions, institutions);
+    int[] numberCodes = translate(other.numbers, numbers);
+    int[] titleCodes = translate(other.titles, titles);
+    int[] subjectCodes = translate(other.subjects, subjects);
+    int[] nameCodes = translate(other.instructorNames, instructorNames);
+    int[] listCodes = new int[other.instructorLists.size()];
+    for (int list = 0; list < listCodes.length; list++) {
+      int known = instructorLists.size();
+      listCodes[list] = instructorLists.encode(other.instructorLists, list);
+      if (listCodes[list] == known) {
+        int[] names = other.instructorsOfList[list].clone();
+        for (int i = 0; i < names.length; i++) {
+          names[i] = nameCodes[names[i]];
+        }
+        setInstructorsOfList(listCodes[list], names);
+      }
+    }
+    int from = size;
+    int rows = other.size;
+    if (from + rows > institution.length) {
+      grow(Math.max(from + rows, institution.length * 2));
+    }
+    for (int i = 0; i < rows; i++) {
+      institution[from + i] = institutionCodes[other.institution[i]];
+      number[from + i] = numberCodes[other.number[i]];
+      title[from + i] = titleCodes[other.title[i]];
+      instructors[from + i] = listCodes[other.instructors[i]];
+      subject[from + i] = subjectCodes[other.subject[i]];
+    }
+    System.arraycopy(other.launchDay, 0, launchDay, from, rows);
+    System.arraycopy(other.year, 0, year, from, rows);
+    System.arraycopy(other.honorCode, 0, honorCode, from, rows);
+    System.arraycopy(other.participants, 0, participants, from, rows);
+    System.arraycopy(other.audited, 0, audited, from, rows);
+    System.arraycopy(other.certified, 0, certified, from, rows);
+    System.arraycopy(other.percentAudited, 0, percentAudited, from, rows);
+    System.arraycopy(other.percentCertified, 0, percentCertified, from, rows);
+    System.arraycopy(other.percentCertified50, 0, percentCertified50, from, rows);
+    System.arraycopy(other.percentVideo, 0, percentVideo, from, rows);
+    System.arraycopy(other.percentForum, 0, percentForum, from, rows);
+    System.arraycopy(other.gradeHigherZero, 0, gradeHigherZero, from, rows);
+    System.arraycopy(other.totalHours, 0, totalHours, from, rows);
+    System.arraycopy(other.medianHoursCertification, 0, medianHoursCertification, from, rows);
+    System.arraycopy(other.medianAge, 0, medianAge, from, rows);
+    System.arraycopy(other.percentMale, 0, percentMale, from, rows);
+    System.arraycopy(other.percentFemale, 0, percentFemale, from, rows);
+    System.arraycopy(other.percentDegree, 0, percentDegree, from, rows);
+    size = from + rows;
+  }
+
+  String institutionOf(int row) {
+    return institutions.decode(institution[row]);
+  }
+
+  String subjectOf(int row) {
+    return subjects.decode(subject[row]);
+  }
+
+  String numberOf(int row) {
+    return numbers.decode(number[row]);
+  }
+
+  String titleOf(int row) {
+    return titles.decode(title[row]);
+  }
+
+  String instructorsOf(int row) {
+    return instructorLists.decode(instructors[row]);
+  }
+
+  int[] instructorCodesOf(int row) {
+    return instructorsOfList[instructors[row]];
+  }
+
+  /**
+   * Title codes sorted by title.
+   */
+  int[] titlesInOrder() {
+    return IntStream.range(0, titles.size()).boxed()
+        .sorted(Comparator.comparing(titles::decode))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private int encodeInstructors(String list) {
+    int known = instructorLists.size();
+    int code = instructorLists.encode(list);
+    if (code == known) {
+      splitInstructors(code);
+    }
+    return code;
+  }
+
+  /**
+   * Same as {@link #add(Course)}'s handling of the instructors column, for a UTF-8 value in
+   * {@code region[from, to)}.
+   */
+  int encodeInstructors(byte[] region, int from, int to) {
+    int known = instructorLists.size();
+    int code = instructorLists.encode(region, from, to);
+    if (code == known) {
+      splitInstructors(code);
+    }
+    return code;
+  }
+
+  void splitInstructors(int list) {
+    String[] names = instructorLists.decode(list).split(", ");
+    int[] codes = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      codes[i] = instructorNames.encode(names[i]);
+    }
+    setInstructorsOfList(list, codes);
+  }
+
+  private void setInstructorsOfList(int list, int[] names) {
+    if (list >= instructorsOfList.length) {
+      instructorsOfList = Arrays.copyOf(instructorsOfList, Math.max(list + 1, instructorsOfList.length * 2));
+    }
+    instructorsOfList[list] = names;
+  }
+
+  private static int[] translate(StringDictionary from, StringDictionary to) {
+    int[] codes = new int[from.size()];
+    for (int code = 0; code < codes.length; code++) {
+      codes[code] = to.encode(from, code);
+    }
+    return codes;
+  }
+
+  private void grow(int capacity) {
+    institution = Arrays.copyOf(institution, capacity);
+    number = Arrays.copyOf(number, capacity);
+    launchDay = Arrays.copyOf(launchDay, capacity);
+    title = Arrays.copyOf(title, capacity);
+    instructors = Arrays.copyOf(instructors, capacity);
+    subject = Arrays.copyOf(subject, capacity);
+    year = Arrays.copyOf(year, capacity);
+    honorCode = Arrays.copyOf(honorCode, capacity);
+    participants = Arrays.copyOf(participants, capacity);
+    audited = Arrays.copyOf(audited, capacity);
+    certified = Arrays.copyOf(certified, capacity);
+    percentAudited = Arrays.copyOf(percentAudited, capacity);
+    percentCertified = Arrays.copyOf(percentCertified, capacity);
+    percentCertified50 = Arrays.copyOf(percentCertified50, capacity);
+    percentVideo = Arrays.copyOf(percentVideo, capacity);
+    percentForum = Arrays.copyOf(percentForum, capacity);
+    gradeHigherZero = Arrays.copyOf(gradeHigherZero, capacity);
+    totalHours = Arrays.copyOf(totalHours, capacity);
+    medianHoursCertification = Arrays.copyOf(medianHoursCertification, capacity);
+    medianAge = Arrays.copyOf(medianAge, capacity);
+    percentMale = Arrays.copyOf(percentMale, capacity);
+    percentFemale = Arrays.copyOf(percentFemale, capacity);
+    percentDegree = Arrays.copyOf(percentDegree, capacity);
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * An approximate answer from {@link CourseSketches}: the estimated value and an interval that contains the
+ * exact value with probability at least {@link #getConfidence() confidence}, or, when the confidence is
+ * {@code NaN}, a heuristic interval that comes with no probabilistic guarantee.
+ */
+public final class Estimate {
+  private final String key;
+  private final double value;
+  private final double lower;
+  private final double upper;
+  private final double confidence;
+
+  Estimate(String key, double value, double lower, double upper, double confidence) {
+    this.key = key;
+    this.value = value;
+    this.lower = lower;
+    this.upper = upper;
+    this.confidence = confidence;
+  }
+
+  /**
+   * What was estimated, e.g. an {@code institution-subject} key or a quantile such as {@code p90}.
+   */
+  public String getKey() {
+    return key;
+  }
+
+  public double getValue() {
+    return value;
+  }
+
+  public double getLower() {
+    return lower;
+  }
+
+  public double getUpper() {
+    return upper;
+  }
+
+  /**
+   * The probability that the interval holds the exact value, or {@code NaN} when the interval is heuristic.
+   */
+  public double getConfidence() {
+    return confidence;
+  }
+
+  @Override
+  public String toString() {
+    if (Double.isNaN(confidence)) {
+      return String.format("%s=%.1f [%.1f, %.1f] heuristic", key, value, lower, upper);
+    }
+    return String.format("%s=%.1f [%.1f, %.1f] @ %.0f%%", key, value, lower, upper, confidence * 100);
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * HyperLogLog distinct counter over 64-bit hashes with {@code 2^precision} one-byte registers. The
+ * relative standard error of {@link #estimate()} is {@code 1.04 / sqrt(2^precision)}; small cardinalities
+ * fall back to linear counting, which is nearly exact while most registers are still empty.
+ */
+final class HyperLogLog {
+  private final int precision;
+  private final byte[] registers;
+
+  HyperLogLog(int precision) {
+    if (precision < 4 || precision > 18) {
+      throw new IllegalArgumentException("precision must be in [4, 18]: " + precision);
+    }
+    this.precision = precision;
+    registers = new byte[1 << precision];
+  }
+
+  void add(long hash) {
+    int register = (int) (hash >>> (64 - precision));
+    // the leading 1 bit of the remaining bits; the sentinel bit bounds the run at 64 - precision + 1
+    int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+    if (rank > registers[register]) {
+      registers[register] = (byte) rank;
+    }
+  }
+
+  double estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double alpha = 0.7213 / (1 + 1.079 / m);
+    double estimate = alpha * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      return m * Math.log((double) m / zeros);
+    }
+    return estimate;
+  }
+
+  double relativeStandardError() {
+    return 1.04 / Math.sqrt(registers.length);
+  }
+
+  /**
+   * A 64-bit hash of {@code value}: FNV-1a over its chars, then the MurmurHash3 finalizer so that every
+   * output bit depends on every input bit.
+   */
+  static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    return CountMinSketch.mix(h);
+  }
+}
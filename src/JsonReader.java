@@ -0,0 +1,205 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small recursive-descent JSON parser for request bodies. Objects become {@link Map}s in member order,
+ * arrays {@link List}s, numbers {@link Double}s, and {@code true}/{@code false}/{@code null} the matching
+ * Java values. Malformed input, or objects and arrays nested deeper than {@link #MAX_DEPTH}, fails with an
+ * {@link IllegalArgumentException} naming the offset, so no body can exhaust the parsing thread's stack.
+ */
+final class JsonReader {
+  static final int MAX_DEPTH = 256;
+
+  private final String text;
+  private int position;
+  private int depth;
+
+  private JsonReader(String text) {
+    this.text = text;
+  }
+
+  static Object parse(String text) {
+    JsonReader reader = new JsonReader(text);
+    Object value = reader.value();
+    reader.skipWhitespace();
+    if (reader.position != text.length()) {
+      throw reader.error("trailing characters");
+    }
+    return value;
+  }
+
+  private Object value() {
+    skipWhitespace();
+    if (position == text.length()) {
+      throw error("unexpected end of input");
+    }
+    char c = text.charAt(position);
+    switch (c) {
+      case '{':
+        nest();
+        Map<String, Object> members = object();
+        depth--;
+        return members;
+      case '[':
+        nest();
+        List<Object> elements = array();
+        depth--;
+        return elements;
+      case '"':
+        return string();
+      case 't':
+        return literal("true", Boolean.TRUE);
+      case 'f':
+        return literal("false", Boolean.FALSE);
+      case 'n':
+        return literal("null", null);
+      default:
+        return number();
+    }
+  }
+
+  private Map<String, Object> object() {
+    Map<String, Object> members = new LinkedHashMap<>();
+    position++;
+    skipWhitespace();
+    if (peek() == '}') {
+      position++;
+      return members;
+    }
+    while (true) {
+      skipWhitespace();
+      if (peek() != '"') {
+        throw error("expected member name");
+      }
+      String name = string();
+      skipWhitespace();
+      expect(':');
+      members.put(name, value());
+      skipWhitespace();
+      if (peek() == '}') {
+        position++;
+        return members;
+      }
+      expect(',');
+    }
+  }
+
+  private List<Object> array() {
+    List<Object> elements = new ArrayList<>();
+    position++;
+    skipWhitespace();
+    if (peek() == ']') {
+      position++;
+      return elements;
+    }
+    while (true) {
+      elements.add(value());
+      skipWhitespace();
+      if (peek() == ']') {
+        position++;
+        return elements;
+      }
+      expect(',');
+    }
+  }
+
+  private String string() {
+    position++;
+    StringBuilder value = new StringBuilder();
+    while (position < text.length()) {
+      char c = text.charAt(position++);
+      if (c == '"') {
+        return value.toString();
+      }
+      if (c != '\\') {
+        value.append(c);
+        continue;
+      }
+      if (position == text.length()) {
+        break;
+      }
+      char escaped = text.charAt(position++);
+      switch (escaped) {
+        case 'b':
+          value.append('\b');
+          break;
+        case 'f':
+          value.append('\f');
+          break;
+        case 'n':
+          value.append('\n');
+          break;
+        case 'r':
+          value.append('\r');
+          break;
+        case 't':
+          value.append('\t');
+          break;
+        case 'u':
+          if (position + 4 > text.length()) {
+            throw error("truncated escape");
+          }
+          try {
+            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+          } catch (NumberFormatException e) {
+            throw error("bad escape");
+          }
+          position += 4;
+          break;
+        default:
+          value.append(escaped);
+      }
+    }
+    throw error("unterminated string");
+  }
+
+  private Double number() {
+    int start = position;
+    while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+      position++;
+    }
+    try {
+      return Double.valueOf(text.substring(start, position));
+    } catch (NumberFormatException e) {
+      position = start;
+      throw error("unexpected character");
+    }
+  }
+
+  private Object literal(String literal, Object value) {
+    if (!text.startsWith(literal, position)) {
+      throw error("unexpected character");
+    }
+    position += literal.length();
+    return value;
+  }
+
+  private void nest() {
+    if (++depth > MAX_DEPTH) {
+      throw error("nested deeper than " + MAX_DEPTH);
+    }
+  }
+
+  private void expect(char c) {
+    if (peek() != c) {
+      throw error("expected '" + c + "'");
+    }
+    position++;
+  }
+
+  private char peek() {
+    return position < text.length() ? text.charAt(position) : 0;
+  }
+
+  private void skipWhitespace() {
+    while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+      position++;
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException("malformed JSON at offset " + position + ": " + message);
+  }
+}
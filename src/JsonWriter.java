@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes JSON straight to an output stream as UTF-8, through a fixed byte buffer, so a response is never
+ * held as one string. Commas between members and elements are inserted automatically; the caller only has
+ * to nest {@code begin}/{@code end} calls correctly.
+ */
+final class JsonWriter implements AutoCloseable {
+  private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[8192];
+  private int count;
+  private boolean[] needsComma = new boolean[16];
+  private int depth;
+
+  JsonWriter(OutputStream out) {
+    this.out = out;
+  }
+
+  JsonWriter beginObject() throws IOException {
+    separate();
+    write('{');
+    push();
+    return this;
+  }
+
+  JsonWriter endObject() throws IOException {
+    depth--;
+    write('}');
+    return this;
+  }
+
+  JsonWriter beginArray() throws IOException {
+    separate();
+    write('[');
+    push();
+    return this;
+  }
+
+  JsonWriter endArray() throws IOException {
+    depth--;
+    write(']');
+    return this;
+  }
+
+  /**
+   * The name of the next object member; its value follows with the next call.
+   */
+  JsonWriter name(String name) throws IOException {
+    separate();
+    string(name);
+    write(':');
+    needsComma[depth] = false;
+    return this;
+  }
+
+  JsonWriter value(String value) throws IOException {
+    separate();
+    if (value == null) {
+      ascii("null");
+    } else {
+      string(value);
+    }
+    return this;
+  }
+
+  JsonWriter value(long value) throws IOException {
+    separate();
+    ascii(Long.toString(value));
+    return this;
+  }
+
+  JsonWriter value(double value) throws IOException {
+    separate();
+    ascii(Double.isFinite(value) ? Double.toString(value) : "null");
+    return this;
+  }
+
+  JsonWriter strings(List<String> values) throws IOException {
+    beginArray();
+    for (String value : values) {
+      value(value);
+    }
+    return endArray();
+  }
+
+  JsonWriter counts(Map<String, Integer> values) throws IOException {
+    beginObject();
+    for (Map.Entry<String, Integer> entry : values.entrySet()) {
+      name(entry.getKey()).value(entry.getValue());
+    }
+    return endObject();
+  }
+
+  /**
+   * Writes out what is buffered and closes the stream.
+   */
+  @Override
+  public void close() throws IOException {
+    if (count > 0) {
+      out.write(buffer, 0, count);
+      count = 0;
+    }
+    out.close();
+  }
+
+  private void push() {
+    if (++depth == needsComma.length) {
+      needsComma = Arrays.copyOf(needsComma, depth * 2);
+    }
+    needsComma[depth] = false;
+  }
+
+  private void separate() throws IOException {
+    if (needsComma[depth]) {
+      write(',');
+    }
+    needsComma[depth] = true;
+  }
+
+  private void string(String value) throws IOException {
+    write('"');
+    for (int i = 0, n = value.length(); i < n; i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        write('\\');
+        write(c);
+      } else if (c < 0x20) {
+        ascii("\\u00");
+        write(HEX[c >> 4]);
+        write(HEX[c & 0xf]);
+      } else if (c < 0x80) {
+        write(c);
+      } else if (c < 0x800) {
+        write(0xc0 | c >> 6);
+        write(0x80 | c & 0x3f);
+      } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        write(0xf0 | codePoint >> 18);
+        write(0x80 | codePoint >> 12 & 0x3f);
+        write(0x80 | codePoint >> 6 & 0x3f);
+        write(0x80 | codePoint & 0x3f);
+      } else {
+        write(0xe0 | c >> 12);
+        write(0x80 | c >> 6 & 0x3f);
+        write(0x80 | c & 0x3f);
+      }
+    }
+    write('"');
+  }
+
+  private void ascii(String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      write(value.charAt(i));
+    }
+  }
+
+  private void write(int b) throws IOException {
+    if (count == buffer.length) {
+      out.write(buffer, 0, count);
+      count = 0;
+    }
+    buffer[count++] = (byte) b;
+  }
+}
@@ -0,0 +1,96 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of nanosecond durations in log-linear buckets, in the manner of HdrHistogram:
+ * values below 128 get a bucket each, and every power-of-two range above is split into 64 equal buckets,
+ * so any recorded value is reported within 1/64 (about 1.6%) of its true value. The whole range of
+ * {@code long} fits in under four thousand buckets. Recording is one atomic increment and one add; the
+ * count is summed from the buckets when read, and the maximum is only written when it grows.
+ */
+final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+  private static final int BUCKETS = indexOf(Long.MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    counts.incrementAndGet(indexOf(value));
+    sum.add(value);
+    for (long current = max.get(); value > current; current = max.get()) {
+      if (max.compareAndSet(current, value)) {
+        break;
+      }
+    }
+  }
+
+  long count() {
+    long count = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      count += counts.get(bucket);
+    }
+    return count;
+  }
+
+  long max() {
+    return max.get();
+  }
+
+  double mean() {
+    long count = count();
+    return count == 0 ? 0 : (double) sum.sum() / count;
+  }
+
+  /**
+   * The smallest recorded value, up to bucket precision, that at least {@code percentile} percent of the
+   * recorded values do not exceed; 0 if nothing was recorded.
+   */
+  long percentile(double percentile) {
+    long count = count();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(highestValueIn(bucket), max());
+      }
+    }
+    return max();
+  }
+
+  void reset() {
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      counts.set(bucket, 0);
+    }
+    sum.reset();
+    max.set(0);
+  }
+
+  static int indexOf(long value) {
+    if (value < 2 * HALF_SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  static long lowestValueIn(int bucket) {
+    if (bucket < 2 * HALF_SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / HALF_SUB_BUCKETS - 1;
+    return (long) (bucket % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS) << shift;
+  }
+
+  static long highestValueIn(int bucket) {
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueIn(bucket + 1) - 1;
+  }
+}
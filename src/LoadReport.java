@@ -0,0 +1,87 @@
+import java.util.List;
+
+/**
+ * The outcome of one load or append: how many rows made it in, how many malformed rows were skipped, and
+ * the first of those with their line numbers. A load that failed outright, e.g. on an unreadable file,
+ * reports its {@link #getFailure() failure} and no rows.
+ */
+public final class LoadReport {
+  private final String source;
+  private final long rowsLoaded;
+  private final long rowsRejected;
+  private final List<Reject> rejects;
+  private final String failure;
+
+  LoadReport(String source, long rowsLoaded, long rowsRejected, List<Reject> rejects, String failure) {
+    this.source = source;
+    this.rowsLoaded = rowsLoaded;
+    this.rowsRejected = rowsRejected;
+    this.rejects = List.copyOf(rejects);
+    this.failure = failure;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public long getRowsLoaded() {
+    return rowsLoaded;
+  }
+
+  public long getRowsRejected() {
+    return rowsRejected;
+  }
+
+  /**
+   * The earliest rejected rows, in file order; at most {@value RejectLog#DEFAULT_CAPACITY} of them.
+   */
+  public List<Reject> getRejects() {
+    return rejects;
+  }
+
+  /**
+   * Why the load failed as a whole, or {@code null} if it did not.
+   */
+  public String getFailure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    return failure != null
+        ? source + ": failed: " + failure
+        : source + ": " + rowsLoaded + " rows loaded, " + rowsRejected + " rejected";
+  }
+
+  /**
+   * A skipped row: the line its record starts on, why it was rejected, and its first 200 bytes.
+   */
+  public static final class Reject {
+    private final long line;
+    private final String reason;
+    private final String text;
+
+    Reject(long line, String reason, String text) {
+      this.line = line;
+      this.reason = reason;
+      this.text = text;
+    }
+
+    public long getLine() {
+      return line;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+
+    public String getText() {
+      return text;
+    }
+
+    @Override
+    public String toString() {
+      return "line " + line + ": " + reason;
+    }
+  }
+}
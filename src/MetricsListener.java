@@ -0,0 +1,18 @@
+/**
+ * Receives analyzer measurements as they are taken, e.g. to forward them to a metrics system. Callbacks
+ * run on the thread that did the work, inside the measured call's return path, so they must be quick and
+ * must not throw.
+ */
+public interface MetricsListener {
+  /**
+   * {@code operation} finished after {@code nanos}; {@code allocatedBytes} is what the calling thread
+   * allocated meanwhile, or -1 when allocation tracking is off.
+   */
+  void operationCompleted(AnalyzerMetrics.Operation operation, long nanos, long allocatedBytes);
+
+  /**
+   * A load or append brought in {@code rows} rows and skipped {@code rejected} malformed ones.
+   */
+  default void rowsLoaded(long rows, long rejected) {
+  }
+}
@@ -0,0 +1,139 @@
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The analyzer queries over course columns kept outside the heap, for histories large enough that holding
+ * them as arrays makes garbage collection pauses hurt. The columns stay in a {@link CourseSnapshot} file
+ * that is memory-mapped read-only, so analyzer processes on one machine share a single page-cache copy.
+ * The heap holds the dictionaries and the per-key indexes only: the aggregates and course profiles, built
+ * in one pass over the mapped columns when the store opens.
+ *
+ * <p>{@code searchCourses} reads the mapped columns directly on every call, in parallel ranges on large
+ * stores, instead of keeping {@link SearchIndex}'s per-row arrays on the heap. The other queries answer
+ * from the indexes, exactly as {@link OnlineCoursesAnalyzer} does.
+ */
+public final class OffHeapCourses {
+  static final int BATCH_ROWS = 1 << 16;
+
+  private final CourseSnapshot.MappedColumns columns;
+  private final CourseTable table;
+  private final CourseAggregates aggregates;
+  private final CourseProfileIndex profiles;
+  private final Parallelism parallelism;
+
+  private OffHeapCourses(CourseSnapshot.MappedColumns columns, Parallelism parallelism) {
+    this.columns = columns;
+    this.parallelism = parallelism;
+    table = columns.dictionaries;
+    aggregates = new CourseAggregates(table);
+    profiles = new CourseProfileIndex(table);
+    for (int from = 0; from < columns.size; from += BATCH_ROWS) {
+      columns.copyRows(from, Math.min(from + BATCH_ROWS, columns.size), table);
+      for (int row = 0; row < table.size; row++) {
+        aggregates.add(row);
+        profiles.add(row);
+      }
+    }
+    table.dropRows();
+  }
+
+  public static OffHeapCourses open(String datasetPath, String storePath) throws IOException {
+    return open(datasetPath, storePath, Parallelism.defaults());
+  }
+
+  /**
+   * Maps the store at {@code storePath}, first writing it from the CSV at {@code datasetPath} when it is
+   * missing or was taken from another version of the CSV. Writing streams the CSV, so it does not need the
+   * rows to fit in the heap either; a CSV that changes while it is streamed fails the open.
+   */
+  public static OffHeapCourses open(String datasetPath, String storePath, Parallelism parallelism)
+      throws IOException {
+    Path source = Paths.get(datasetPath);
+    Path store = Paths.get(storePath);
+    CourseSnapshot.MappedColumns columns = CourseSnapshot.map(store, source);
+    if (columns == null) {
+      CourseSnapshot.writeFromCsv(source, store);
+      columns = CourseSnapshot.map(store, source);
+      if (columns == null) {
+        throw new IOException(datasetPath + " changed while " + storePath + " was written");
+      }
+    }
+    return new OffHeapCourses(columns, parallelism);
+  }
+
+  public int size() {
+    return columns.size;
+  }
+
+  public Map<String, Integer> getPtcpCountByInst() {
+    return OnlineCoursesAnalyzer.computePtcpCountByInst(table, aggregates);
+  }
+
+  public Map<String, Integer> getPtcpCountByInstAndSubject() {
+    return OnlineCoursesAnalyzer.computePtcpCountByInstAndSubject(table, aggregates);
+  }
+
+  public Map<String, List<List<String>>> getCourseListOfInstructor() {
+    return OnlineCoursesAnalyzer.computeCourseListOfInstructor(table, aggregates);
+  }
+
+  public List<String> getCourses(int topK, String by) {
+    return OnlineCoursesAnalyzer.computeCourses(table, aggregates, topK, CourseMetric.of(by));
+  }
+
+  public List<String> searchCourses(String courseSubject, double percentAudited, double totalCourseHours) {
+    String query = courseSubject.toLowerCase();
+    boolean[] subjectMatches = new boolean[table.subjects.size()];
+    for (int subject = 0; subject < subjectMatches.length; subject++) {
+      subjectMatches[subject] = table.subjects.decode(subject).toLowerCase().contains(query);
+    }
+    int size = columns.size;
+    BitSet titles;
+    if (parallelism.splits(size)) {
+      titles = new BitSet(table.titles.size());
+      for (BitSet range : parallelism.mapRanges(size,
+          (from, to) -> matchingTitles(subjectMatches, percentAudited, totalCourseHours, from, to))) {
+        titles.or(range);
+      }
+    } else {
+      titles = matchingTitles(subjectMatches, percentAudited, totalCourseHours, 0, size);
+    }
+    String[] matched = new String[titles.cardinality()];
+    int i = 0;
+    for (int title = titles.nextSetBit(0); title >= 0; title = titles.nextSetBit(title + 1)) {
+      matched[i++] = table.titles.decode(title);
+    }
+    Arrays.sort(matched);
+    return List.of(matched);
+  }
+
+  public List<String> recommendCourses(int age, int gender, int isBachelorOrHigher) {
+    return List.copyOf(profiles.recommend(age, gender, isBachelorOrHigher, 10));
+  }
+
+  /**
+   * Title codes of the rows in {@code [from, to)} that satisfy the search, read from the mapped columns.
+   */
+  private BitSet matchingTitles(boolean[] subjectMatches, double percentAudited, double totalCourseHours, int from,
+                                int to) {
+    DoubleBuffer audited = columns.percentAudited;
+    DoubleBuffer hours = columns.totalHours;
+    IntBuffer subjects = columns.subject;
+    IntBuffer titles = columns.title;
+    BitSet matches = new BitSet(table.titles.size());
+    for (int row = from; row < to; row++) {
+      if (audited.get(row) >= percentAudited && hours.get(row) <= totalCourseHours
+          && subjectMatches[subjects.get(row)]) {
+        matches.set(titles.get(row));
+      }
+    }
+    return matches;
+  }
+}
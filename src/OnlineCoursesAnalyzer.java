@@ -1,339 +1,451 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
+/**
+ * Answers the course queries over the currently published {@link CourseDataset}. Queries read the dataset
+ * from an {@link AtomicReference} and never lock, so any number of threads can query at once; reloads and
+ * appends build the next dataset on the side, serialized among themselves, and swap it in atomically.
+ */
 public class OnlineCoursesAnalyzer {
 
-  List<Course> courses = new ArrayList<>();
+  private final AtomicReference<CourseDataset> dataset = new AtomicReference<>();
+  private final Object writeLock = new Object();
+  private final Parallelism parallelism;
+  private final AnalyzerMetrics metrics;
+  private final boolean lenient;
+  private volatile LoadReport lastLoadReport;
+  final QueryCache cache;
 
   public OnlineCoursesAnalyzer(String datasetPath) {
-    BufferedReader br = null;
-    String line;
-    try {
-      br = new BufferedReader(new FileReader(datasetPath, StandardCharsets.UTF_8));
-      br.readLine();
-      while ((line = br.readLine()) != null) {
-        String[] info = line.split(",(?=([^\\\"]*\\\"[^\\\"]*\\\")*[^\\\"]*$)", -1);
-        Course course = new Course(info[0], info[1], new Date(info[2]), info[3], info[4], info[5],
-            Integer.parseInt(info[6]), Integer.parseInt(info[7]), Integer.parseInt(info[8]),
-            Integer.parseInt(info[9]), Integer.parseInt(info[10]), Double.parseDouble(info[11]),
-            Double.parseDouble(info[12]), Double.parseDouble(info[13]), Double.parseDouble(info[14]),
-            Double.parseDouble(info[15]), Double.parseDouble(info[16]), Double.parseDouble(info[17]),
-            Double.parseDouble(info[18]), Double.parseDouble(info[19]), Double.parseDouble(info[20]),
-            Double.parseDouble(info[21]), Double.parseDouble(info[22]));
-        courses.add(course);
-      }
-    } catch (IOException e) {
-      e.printStackTrace();
-    } finally {
-      if (br != null) {
-        try {
-          br.close();
-        } catch (IOException e) {
-          e.printStackTrace();
-        }
-      }
-    }
+    this(datasetPath, Parallelism.defaults());
   }
 
-  //1
-  public Map<String, Integer> getPtcpCountByInst() {
-    Stream<Course> courseStream = courses.stream();
-    return courseStream
-        .sorted(Course::compareByIns)
-        .collect(Collectors
-            .groupingBy(Course::getInstitution, LinkedHashMap::new, Collectors.summingInt(Course::getParticipants)));
+  /**
+   * Loads the dataset using {@code parallelism} for CSV parsing and for aggregating datasets large enough
+   * to split.
+   */
+  public OnlineCoursesAnalyzer(String datasetPath, Parallelism parallelism) {
+    this(datasetPath, parallelism, new AnalyzerMetrics());
   }
 
-  //2
-  public Map<String, Integer> getPtcpCountByInstAndSubject() {
-    return courses.stream()
-        .collect(Collectors.groupingBy(
-            course -> course.getInstitution() + "-" + course.getSubject(),
-            Collectors.summingInt(Course::getParticipants)
-        ))
-        .entrySet().stream()
-        .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
-            .thenComparing(Map.Entry.comparingByKey()))
-        .collect(Collectors.toMap(
-            Map.Entry::getKey,
-            Map.Entry::getValue,
-            (e1, e2) -> e1,
-            LinkedHashMap::new
-        ));
+  /**
+   * Loads the dataset and records its load and all later queries into {@code metrics}, so listeners and
+   * options set on it beforehand already see the initial load.
+   */
+  public OnlineCoursesAnalyzer(String datasetPath, Parallelism parallelism, AnalyzerMetrics metrics) {
+    this(datasetPath, parallelism, metrics, false);
   }
 
-  //3
-  public Map<String, List<List<String>>> getCourseListOfInstructor() {
-    Map<String, List<List<String>>> result = new HashMap<>();
-    for (Course course : courses) {
-      String[] instructors = course.getInstructors().split(", ");
-      for (String instructor : instructors) {
-        result.putIfAbsent(instructor, new ArrayList<>(Arrays.asList(new ArrayList<>(), new ArrayList<>())));
-        if (course.isIndependentlyResponsible()) {
-          if (!result.get(instructor).get(0).contains(course.getTitle())) {
-            result.get(instructor).get(0).add(course.getTitle());
-          }
-        } else {
-          if (!result.get(instructor).get(1).contains(course.getTitle())) {
-            result.get(instructor).get(1).add(course.getTitle());
-          }
-        }
-      }
-    }
-    for (List<List<String>> lists : result.values()) {
-      lists.get(0).sort(String::compareTo);
-      lists.get(1).sort(String::compareTo);
-    }
-    return result;
+  private OnlineCoursesAnalyzer(String datasetPath, Parallelism parallelism, AnalyzerMetrics metrics,
+                                boolean lenient) {
+    this.parallelism = parallelism;
+    this.metrics = metrics;
+    this.lenient = lenient;
+    cache = new QueryCache(QueryCache.DEFAULT_CAPACITY, metrics.cacheHits, metrics.cacheMisses);
+    load(datasetPath);
   }
 
-  //4
-  public List<String> getCourses(int topK, String by) {
-    List<Course> totalResults = null;
-    if (by.equals("hours")) {
-      totalResults = courses.stream()
-          .sorted(Comparator.comparingDouble(Course::getTotalHours).reversed().thenComparing(Course::getTitle))
-          .toList();
-    } else if (by.equals("participants")) {
-      totalResults = courses.stream()
-          .sorted(Comparator.comparingDouble(Course::getParticipants).reversed().thenComparing(Course::getTitle))
-          .toList();
+  OnlineCoursesAnalyzer(CourseTable table, Parallelism parallelism, AnalyzerMetrics metrics) {
+    this(table, null, parallelism, metrics);
+  }
+
+  private OnlineCoursesAnalyzer(CourseTable table, CourseSnapshot.Fingerprint source, Parallelism parallelism,
+                                AnalyzerMetrics metrics) {
+    this.parallelism = parallelism;
+    this.metrics = metrics;
+    this.lenient = false;
+    cache = new QueryCache(QueryCache.DEFAULT_CAPACITY, metrics.cacheHits, metrics.cacheMisses);
+    publish(index(0, table, source));
+  }
+
+  /**
+   * Opens the dataset in lenient mode: this load and every later reload and append skip rows with the wrong
+   * number of columns or unparseable values instead of failing, and report them in {@link #lastLoadReport()}.
+   */
+  public static OnlineCoursesAnalyzer openLenient(String datasetPath) {
+    return openLenient(datasetPath, Parallelism.defaults(), new AnalyzerMetrics());
+  }
+
+  public static OnlineCoursesAnalyzer openLenient(String datasetPath, Parallelism parallelism,
+                                                  AnalyzerMetrics metrics) {
+    return new OnlineCoursesAnalyzer(datasetPath, parallelism, metrics, true);
+  }
+
+  /**
+   * Opens the dataset from a binary snapshot when one exists for the current version of the CSV, and
+   * otherwise parses the CSV and writes a fresh snapshot for the next start.
+   */
+  public static OnlineCoursesAnalyzer openWithSnapshot(String datasetPath, String snapshotPath) throws IOException {
+    return openWithSnapshot(datasetPath, snapshotPath, Parallelism.defaults());
+  }
+
+  public static OnlineCoursesAnalyzer openWithSnapshot(String datasetPath, String snapshotPath,
+                                                       Parallelism parallelism) throws IOException {
+    return openWithSnapshot(datasetPath, snapshotPath, parallelism, new AnalyzerMetrics());
+  }
+
+  public static OnlineCoursesAnalyzer openWithSnapshot(String datasetPath, String snapshotPath,
+                                                       Parallelism parallelism, AnalyzerMetrics metrics)
+      throws IOException {
+    Path source = Paths.get(datasetPath);
+    Path snapshot = Paths.get(snapshotPath);
+    CourseSnapshot.Fingerprint fingerprint = CourseSnapshot.Fingerprint.of(source);
+    CourseTable table;
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.READ_SNAPSHOT)) {
+      table = CourseSnapshot.read(snapshot, fingerprint);
+      timer.rows(table == null ? 0 : table.size);
     }
-    List<String> result = new ArrayList<>();
-    int size = 0;
-    for (int i = 0; size < topK && i < totalResults.size(); i++) {
-      String title = totalResults.get(i).getTitle();
-      if (!result.contains(title)) {
-        result.add(totalResults.get(i).getTitle());
+    if (table == null) {
+      try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.PARSE)) {
+        table = new ParallelCsvLoader(parallelism).load(source);
+        timer.rows(table.size);
       }
-      size = result.size();
+      CourseSnapshot.write(table, snapshot, fingerprint);
     }
-    return result;
+    metrics.rowsLoaded(table.size, 0);
+    OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer(table, fingerprint, parallelism, metrics);
+    analyzer.lastLoadReport = new LoadReport(datasetPath, table.size, 0, List.of(), null);
+    return analyzer;
   }
 
-  //5
-  public List<String> searchCourses(String courseSubject, double percentAudited, double totalCourseHours) {
-    List<Course> filteredCourses = courses.stream()
-        .filter(c -> c.getSubject().toLowerCase().contains(courseSubject.toLowerCase()))
-        .filter(c -> c.getPercentAudited() >= percentAudited)
-        .filter(c -> c.getTotalHours() <= totalCourseHours)
-        .collect(Collectors.toList());
-    Collections.sort(filteredCourses, Comparator.comparing(Course::getTitle));
-    List<String> result = new ArrayList<>();
-    for (Course c : filteredCourses) {
-      String title = c.getTitle();
-      if (!result.contains(title)) {
-        result.add(title);
-      }
+  /**
+   * Replaces the dataset with the one at {@code datasetPath}. If the file cannot be read, the current
+   * dataset stays in place and the returned report says why.
+   */
+  public LoadReport reload(String datasetPath) {
+    return load(datasetPath);
+  }
+
+  /**
+   * Writes the current dataset as the snapshot of the CSV at {@code datasetPath}, stamped with the version
+   * of the CSV it was loaded from. Refused once the dataset holds anything but exactly that CSV's rows,
+   * since a later {@link #openWithSnapshot} would otherwise serve rows the CSV does not have.
+   *
+   * @throws IllegalStateException if rows were appended or skipped, or the dataset came from another file
+   */
+  public void writeSnapshot(String datasetPath, String snapshotPath) throws IOException {
+    CourseDataset data = current();
+    if (data.source == null || !data.source.isOf(Paths.get(datasetPath))) {
+      throw new IllegalStateException("dataset has diverged from " + datasetPath);
     }
-    return result;
+    CourseSnapshot.write(data.table, Paths.get(snapshotPath), data.source);
   }
 
-  //6
-  public List<String> recommendCourses(int age, int gender, int isBachelorOrHigher) {
-    Map<String, Double> medianAgeMap = new HashMap<>();
-    Map<String, Double> malePercentageMap = new HashMap<>();
-    Map<String, Double> bachelorPercentageMap = new HashMap<>();
-    for (Course course : courses) {
-      String courseNumber = course.getNumber();
-      double medianAge = course.getMedianAge();
-      double malePercentage = course.getPercentMale();
-      double bachelorPercentage = course.getPercentDegree();
-
-      medianAgeMap.put(courseNumber,
-          medianAgeMap.getOrDefault(courseNumber, 0.0) + medianAge);
-      malePercentageMap.put(courseNumber,
-          malePercentageMap.getOrDefault(courseNumber, 0.0) + malePercentage);
-      bachelorPercentageMap.put(courseNumber,
-          bachelorPercentageMap.getOrDefault(courseNumber, 0.0) + bachelorPercentage);
+  /**
+   * The report of the most recent load, reload or append.
+   */
+  public LoadReport lastLoadReport() {
+    return lastLoadReport;
+  }
+
+  private LoadReport load(String datasetPath) {
+    Path source = Paths.get(datasetPath);
+    RejectLog rejects = lenient ? new RejectLog() : null;
+    CourseTable loaded = null;
+    CourseSnapshot.Fingerprint fingerprint = null;
+    String failure = null;
+    try {
+      fingerprint = CourseSnapshot.Fingerprint.of(source);
+      loaded = parse(source, rejects);
+    } catch (IOException e) {
+      metrics.loadFailed();
+      failure = e.toString();
+      if (!lenient) {
+        e.printStackTrace();
+      }
     }
-    for (String courseNumber : medianAgeMap.keySet()) {
-      int count = 0;
-      for (Course course : courses) {
-        if (course.getNumber().equals(courseNumber)) {
-          count++;
-        }
+    LoadReport report = report(source, loaded, rejects, failure);
+    if (loaded == null || report.getRowsRejected() > 0) {
+      fingerprint = null;
+    }
+    synchronized (writeLock) {
+      CourseDataset previous = dataset.get();
+      if (loaded != null || previous == null) {
+        publish(index(previous == null ? 0 : previous.version + 1, loaded == null ? new CourseTable() : loaded,
+            fingerprint));
       }
-      medianAgeMap.put(courseNumber,
-          medianAgeMap.get(courseNumber) / count);
-      malePercentageMap.put(courseNumber,
-          malePercentageMap.get(courseNumber) / count);
-      bachelorPercentageMap.put(courseNumber,
-          bachelorPercentageMap.get(courseNumber) / count);
     }
-    Map<String, Double> similarityValueMap = new HashMap<>();
-
-    for (String courseNumber : medianAgeMap.keySet()) {
-      double avgMedianAge = medianAgeMap.get(courseNumber);
-      double avgMalePercentage = malePercentageMap.get(courseNumber);
-      double avgBachelorPercentage = bachelorPercentageMap.get(courseNumber);
-
-      double similarityValue = Math.pow(age - avgMedianAge, 2)
-          + Math.pow(gender * 100 - avgMalePercentage, 2)
-          + Math.pow(isBachelorOrHigher * 100 - avgBachelorPercentage, 2);
+    return report;
+  }
 
-      similarityValueMap.put(courseNumber, similarityValue);
+  private CourseDataset index(long version, CourseTable table, CourseSnapshot.Fingerprint source) {
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.INDEX)) {
+      timer.rows(table.size);
+      return CourseDataset.of(version, table, parallelism, source);
     }
-    List<String> recommendedCourses = new ArrayList<>();
-
-    Map<String, Course> courseNumberToCourse = new HashMap<>();
-    Map<String, Date> courseNumberToEarliestLaunchDate = new HashMap<>();
-
-    for (Course course : courses) {
-      String courseNumber = course.getNumber();
-      Date launchDate = course.getLaunchDate();
+  }
 
-      if (!courseNumberToEarliestLaunchDate.containsKey(courseNumber)
-          || launchDate.after(courseNumberToEarliestLaunchDate.get(courseNumber))) {
-        courseNumberToCourse.put(courseNumber, course);
-        courseNumberToEarliestLaunchDate.put(courseNumber, launchDate);
+  /**
+   * Appends the rows of {@code deltaCsv}; in lenient mode malformed rows are skipped and reported.
+   */
+  public LoadReport append(Path deltaCsv) throws IOException {
+    RejectLog rejects = lenient ? new RejectLog() : null;
+    CourseTable delta = parse(deltaCsv, rejects);
+    LoadReport report = report(deltaCsv, delta, rejects, null);
+    synchronized (writeLock) {
+      try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.APPEND)) {
+        timer.rows(delta.size);
+        publish(current().append(delta));
       }
     }
+    return report;
+  }
 
-    List<Course> courseEarliestLaunch = new ArrayList<>(courseNumberToCourse.values());
-
-    courseEarliestLaunch
-        .sort(Comparator.comparingDouble((Course c) -> similarityValueMap.get(c.getNumber())).thenComparing(Course::getTitle));
+  private CourseTable parse(Path source, RejectLog rejects) throws IOException {
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.PARSE)) {
+      CourseTable table = new ParallelCsvLoader(parallelism).load(source, rejects);
+      timer.rows(table.size);
+      return table;
+    }
+  }
 
-    for (Course course : courseEarliestLaunch) {
-      if (recommendedCourses.size() >= 10) {
-        break;
+  private LoadReport report(Path source, CourseTable loaded, RejectLog rejects, String failure) {
+    long rows = loaded == null ? 0 : loaded.size;
+    long rejected = rejects == null ? 0 : rejects.count();
+    List<LoadReport.Reject> details = List.of();
+    if (rejected > 0) {
+      try {
+        details = rejects.resolve(source);
+      } catch (IOException e) {
+        // the rows were read; only their line numbers are lost
       }
-      String title = course.getTitle();
-      if (!recommendedCourses.contains(title)) {
-        recommendedCourses.add(title);
+    }
+    metrics.rowsLoaded(rows, rejected);
+    LoadReport report = new LoadReport(source.toString(), rows, rejected, details, failure);
+    lastLoadReport = report;
+    return report;
+  }
+
+  public void addCourse(Course course) {
+    synchronized (writeLock) {
+      try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.APPEND)) {
+        timer.rows(1);
+        publish(current().append(List.of(course)));
       }
     }
-    return recommendedCourses;
   }
 
-}
+  /**
+   * Starts an ad-hoc query over the current dataset; later reloads and appends do not affect it.
+   */
+  public CourseQuery query() {
+    return new CourseQuery(current().table);
+  }
 
-class Course {
-  String institution;
-  String number;
-  Date launchDate;
-  String title;
-  String instructors;
-  String subject;
-  int year;
-  int honorCode;
-  int participants;
-  int audited;
-  int certified;
-  double percentAudited;
-  double percentCertified;
-  double percentCertified50;
-  double percentVideo;
-  double percentForum;
-  double gradeHigherZero;
-  double totalHours;
-  double medianHoursCertification;
-  double medianAge;
-  double percentMale;
-  double percentFemale;
-  double percentDegree;
+  /**
+   * Load and query measurements of this analyzer; see {@link AnalyzerMetrics#registerMBean(String)} to
+   * expose them over JMX.
+   */
+  public AnalyzerMetrics metrics() {
+    return metrics;
+  }
 
-  public Course(String institution, String number, Date launchDate,
-                String title, String instructors, String subject,
-                int year, int honorCode, int participants,
-                int audited, int certified, double percentAudited,
-                double percentCertified, double percentCertified50,
-                double percentVideo, double percentForum, double gradeHigherZero,
-                double totalHours, double medianHoursCertification,
-                double medianAge, double percentMale, double percentFemale,
-                double percentDegree) {
-    this.institution = institution;
-    this.number = number;
-    this.launchDate = launchDate;
-    if (title.startsWith("\"")) title = title.substring(1);
-    if (title.endsWith("\"")) title = title.substring(0, title.length() - 1);
-    this.title = title;
-    if (instructors.startsWith("\"")) instructors = instructors.substring(1);
-    if (instructors.endsWith("\"")) instructors = instructors.substring(0, instructors.length() - 1);
-    this.instructors = instructors;
-    if (subject.startsWith("\"")) subject = subject.substring(1);
-    if (subject.endsWith("\"")) subject = subject.substring(0, subject.length() - 1);
-    this.subject = subject;
-    this.year = year;
-    this.honorCode = honorCode;
-    this.participants = participants;
-    this.audited = audited;
-    this.certified = certified;
-    this.percentAudited = percentAudited;
-    this.percentCertified = percentCertified;
-    this.percentCertified50 = percentCertified50;
-    this.percentVideo = percentVideo;
-    this.percentForum = percentForum;
-    this.gradeHigherZero = gradeHigherZero;
-    this.totalHours = totalHours;
-    this.medianHoursCertification = medianHoursCertification;
-    this.medianAge = medianAge;
-    this.percentMale = percentMale;
-    this.percentFemale = percentFemale;
-    this.percentDegree = percentDegree;
+  /**
+   * The dataset queries currently run against.
+   */
+  CourseDataset current() {
+    return dataset.get();
   }
 
-  public String getInstitution() {
-    return institution;
+  /**
+   * {@code compute}, reporting the rows of {@code data} to {@code timer} when the cache misses and it runs.
+   */
+  private static <T> Supplier<T> computed(AnalyzerMetrics.Timer timer, CourseDataset data, Supplier<T> compute) {
+    return () -> {
+      timer.rows(data.table.size);
+      return compute.get();
+    };
   }
 
-  public String getNumber() {
-    return number;
+  private void publish(CourseDataset next) {
+    dataset.set(next);
+    cache.invalidateAll();
   }
 
-  public int getParticipants() {
-    return participants;
+  //1
+  public Map<String, Integer> getPtcpCountByInst() {
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.GET_PTCP_COUNT_BY_INST)) {
+      CourseDataset data = current();
+      return cache.memoize("getPtcpCountByInst", data.version,
+          computed(timer, data, () -> computePtcpCountByInst(data.table, data.aggregates)));
+    }
   }
 
-  public String getSubject() {
-    return subject;
+  static Map<String, Integer> computePtcpCountByInst(CourseTable table, CourseAggregates aggregates) {
+    int[] totals = aggregates.participantsByInstitution;
+    return IntStream.range(0, table.institutions.size()).boxed()
+        .sorted(Comparator.comparing(table.institutions::decode))
+        .collect(Collectors.collectingAndThen(
+            Collectors.toMap(table.institutions::decode, code -> totals[code], (e1, e2) -> e1, LinkedHashMap::new),
+            Collections::unmodifiableMap));
   }
 
-  public String getInstructors() {
-    return instructors;
+  //2
+  public Map<String, Integer> getPtcpCountByInstAndSubject() {
+    try (AnalyzerMetrics.Timer timer =
+             metrics.start(AnalyzerMetrics.Operation.GET_PTCP_COUNT_BY_INST_AND_SUBJECT)) {
+      CourseDataset data = current();
+      return cache.memoize("getPtcpCountByInstAndSubject", data.version,
+          computed(timer, data, () -> computePtcpCountByInstAndSubject(data.table, data.aggregates)));
+    }
   }
 
-  public String getTitle() {
-    return title;
+  static Map<String, Integer> computePtcpCountByInstAndSubject(CourseTable table, CourseAggregates aggregates) {
+    Map<String, Integer> byKey = new HashMap<>();
+    for (int institution = 0; institution < table.institutions.size(); institution++) {
+      int[] totals = aggregates.participantsByInstitutionAndSubject[institution];
+      boolean[] present = aggregates.hasInstitutionAndSubject[institution];
+      for (int subject = 0; subject < totals.length; subject++) {
+        if (present[subject]) {
+          byKey.put(table.institutions.decode(institution) + "-" + table.subjects.decode(subject), totals[subject]);
+        }
+      }
+    }
+    return sortedByValue(byKey);
   }
 
-  public Date getLaunchDate() {
-    return launchDate;
+  /**
+   * {@code byKey} ordered by value, largest first, then by key.
+   */
+  static Map<String, Integer> sortedByValue(Map<String, Integer> byKey) {
+    return byKey.entrySet().stream()
+        .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+            .thenComparing(Map.Entry.comparingByKey()))
+        .collect(Collectors.collectingAndThen(
+            Collectors.toMap(
+                Map.Entry::getKey,
+                Map.Entry::getValue,
+                (e1, e2) -> e1,
+                LinkedHashMap::new
+            ),
+            Collections::unmodifiableMap));
   }
 
-  public double getTotalHours() {
-    return totalHours;
+  //3
+  public Map<String, List<List<String>>> getCourseListOfInstructor() {
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.GET_COURSE_LIST_OF_INSTRUCTOR)) {
+      CourseDataset data = current();
+      return cache.memoize("getCourseListOfInstructor", data.version,
+          computed(timer, data, () -> computeCourseListOfInstructor(data.table, data.aggregates)));
+    }
   }
 
-  public double getPercentAudited() {
-    return percentAudited;
+  static Map<String, List<List<String>>> computeCourseListOfInstructor(CourseTable table,
+                                                                       CourseAggregates aggregates) {
+    int[] titlesInOrder = table.titlesInOrder();
+    int[] rankOfTitle = new int[titlesInOrder.length];
+    for (int rank = 0; rank < titlesInOrder.length; rank++) {
+      rankOfTitle[titlesInOrder[rank]] = rank;
+    }
+    Map<String, List<List<String>>> result = new HashMap<>();
+    for (int instructor = 0; instructor < table.instructorNames.size(); instructor++) {
+      result.put(table.instructorNames.decode(instructor), List.of(
+          aggregates.independentTitles.get(instructor).sortedTitles(table, titlesInOrder, rankOfTitle),
+          aggregates.sharedTitles.get(instructor).sortedTitles(table, titlesInOrder, rankOfTitle)));
+    }
+    return Collections.unmodifiableMap(result);
   }
 
-  public double getMedianAge() {
-    return medianAge;
+  //4
+  public List<String> getCourses(int topK, String by) {
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.GET_COURSES)) {
+      CourseMetric metric = CourseMetric.of(by);
+      CourseDataset data = current();
+      return cache.lookup(List.of("getCourses", topK, metric), data.version,
+          computed(timer, data, () -> computeCourses(data.table, data.aggregates, topK, metric)));
+    }
   }
 
-  public double getPercentMale() {
-    return percentMale;
+  static List<String> computeCourses(CourseTable table, CourseAggregates aggregates, int topK, CourseMetric metric) {
+    double[] best = aggregates.bestByMetric[metric.ordinal()];
+    TopK selection = new TopK(topK, (a, b) -> {
+      int byValue = Double.compare(best[b], best[a]);
+      return byValue != 0 ? byValue : table.titles.decode(a).compareTo(table.titles.decode(b));
+    });
+    for (int title = 0; title < aggregates.titleCount; title++) {
+      selection.offer(title);
+    }
+    List<String> result = new ArrayList<>(selection.size());
+    for (int title : selection.toSortedArray()) {
+      result.add(table.titles.decode(title));
+    }
+    return List.copyOf(result);
   }
 
-  public double getPercentDegree() {
-    return percentDegree;
+  //5
+  public List<String> searchCourses(String courseSubject, double percentAudited, double totalCourseHours) {
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.SEARCH_COURSES)) {
+      CourseDataset data = current();
+      return cache.lookup(List.of("searchCourses", courseSubject, percentAudited, totalCourseHours), data.version,
+          computed(timer, data,
+              () -> List.copyOf(data.searchIndex.search(courseSubject, percentAudited, totalCourseHours))));
+    }
   }
 
+  /**
+   * {@link #searchCourses} for each index {@code i} of the three arrays, all against the same dataset.
+   * Repeated parameter sets are evaluated once, and the distinct ones in a single pass over the rows.
+   */
+  public List<List<String>> searchCoursesBatch(String[] courseSubjects, double[] percentAudited,
+                                               double[] totalCourseHours) {
+    if (percentAudited.length != courseSubjects.length || totalCourseHours.length != courseSubjects.length) {
+      throw new IllegalArgumentException("parameter arrays differ in length");
+    }
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.SEARCH_COURSES_BATCH)) {
+      CourseDataset data = current();
+      timer.rows(data.table.size);
+      Map<List<Object>, Integer> distinct = new HashMap<>();
+      int[] slot = new int[courseSubjects.length];
+      for (int i = 0; i < courseSubjects.length; i++) {
+        slot[i] = distinct.computeIfAbsent(List.of(courseSubjects[i], percentAudited[i], totalCourseHours[i]),
+            key -> distinct.size());
+      }
+      String[] subjects = new String[distinct.size()];
+      double[] audited = new double[distinct.size()];
+      double[] hours = new double[distinct.size()];
+      for (int i = 0; i < courseSubjects.length; i++) {
+        subjects[slot[i]] = courseSubjects[i];
+        audited[slot[i]] = percentAudited[i];
+        hours[slot[i]] = totalCourseHours[i];
+      }
+      List<List<String>> results = data.searchIndex.searchAll(subjects, audited, hours);
+      results.replaceAll(List::copyOf);
+      List<List<String>> batch = new ArrayList<>(courseSubjects.length);
+      for (int i = 0; i < courseSubjects.length; i++) {
+        batch.add(results.get(slot[i]));
+      }
+      return batch;
+    }
+  }
 
-  public static int compareByIns(Course c1, Course c2) {
-    return c1.institution.compareTo(c2.institution);
+  //6
+  public List<String> recommendCourses(int age, int gender, int isBachelorOrHigher) {
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.RECOMMEND_COURSES)) {
+      CourseDataset data = current();
+      return cache.lookup(List.of("recommendCourses", age, gender, isBachelorOrHigher), data.version,
+          computed(timer, data,
+              () -> List.copyOf(data.profiles.recommend(age, gender, isBachelorOrHigher, 10))));
+    }
   }
 
-  public boolean isIndependentlyResponsible() {
-    String[] instructor = instructors.split(", ");
-    return instructor.length == 1;
+  /**
+   * {@link #recommendCourses} for each index {@code i} of the three arrays, all against the same dataset.
+   * The course profiles are built once, each distinct learner profile is scored once, and large batches
+   * are scored in parallel.
+   */
+  public List<List<String>> recommendCoursesBatch(int[] ages, int[] genders, int[] isBachelorOrHigher) {
+    if (genders.length != ages.length || isBachelorOrHigher.length != ages.length) {
+      throw new IllegalArgumentException("parameter arrays differ in length");
+    }
+    try (AnalyzerMetrics.Timer timer = metrics.start(AnalyzerMetrics.Operation.RECOMMEND_COURSES_BATCH)) {
+      timer.rows(ages.length);
+      return current().profiles.recommendAll(ages, genders, isBachelorOrHigher, 10, parallelism);
+    }
   }
 }
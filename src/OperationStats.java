@@ -0,0 +1,64 @@
+/**
+ * A point-in-time summary of one {@link AnalyzerMetrics.Operation}: how often it ran, its latency
+ * distribution in nanoseconds, and the bytes it allocated on the calling thread while allocation tracking
+ * was on. Exposed through JMX as composite data.
+ */
+public final class OperationStats {
+  private final long count;
+  private final double meanNanos;
+  private final long p50Nanos;
+  private final long p90Nanos;
+  private final long p99Nanos;
+  private final long p999Nanos;
+  private final long maxNanos;
+  private final long allocatedBytes;
+
+  OperationStats(LatencyHistogram histogram, long allocatedBytes) {
+    count = histogram.count();
+    meanNanos = histogram.mean();
+    p50Nanos = histogram.percentile(50);
+    p90Nanos = histogram.percentile(90);
+    p99Nanos = histogram.percentile(99);
+    p999Nanos = histogram.percentile(99.9);
+    maxNanos = histogram.max();
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getMeanNanos() {
+    return meanNanos;
+  }
+
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP90Nanos() {
+    return p90Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  public long getP999Nanos() {
+    return p999Nanos;
+  }
+
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d mean=%.0fns p50=%dns p99=%dns max=%dns allocated=%dB",
+        count, meanNanos, p50Nanos, p99Nanos, maxNanos, allocatedBytes);
+  }
+}
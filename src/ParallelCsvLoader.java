@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads the course CSV by memory-mapping it and parsing newline-aligned chunks in parallel.
+ *
+ * <p>Chunks start at fixed byte offsets. A first pass counts quotes per chunk so that the quote state
+ * at every chunk start is known, which lets each chunk find its first record boundary without
+ * mistaking a newline inside a quoted field for the end of a row. Each chunk is parsed straight from
+ * the mapped bytes into its own {@link CourseTable}, and the chunk tables are appended in file order.
+ * Given a {@link RejectLog}, chunks skip malformed records instead of failing the load.
+ */
+class ParallelCsvLoader {
+  static final long DEFAULT_CHUNK_BYTES = 16L << 20;
+  private static final int ESTIMATED_ROW_BYTES = 200;
+
+  private final ForkJoinPool pool;
+  private final long chunkBytes;
+
+  ParallelCsvLoader() {
+    this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * Loads on the pool of {@code parallelism}, or chunk by chunk on the calling thread when it is sequential.
+   */
+  ParallelCsvLoader(Parallelism parallelism) {
+    this(parallelism.pool(), DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * Loads on {@code pool}, or on the calling thread when it is {@code null}.
+   */
+  ParallelCsvLoader(ForkJoinPool pool, long chunkBytes) {
+    if (chunkBytes <= 0 || chunkBytes > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("chunkBytes out of range: " + chunkBytes);
+    }
+    this.pool = pool;
+    this.chunkBytes = chunkBytes;
+  }
+
+  CourseTable load(Path path) throws IOException {
+    return load(path, null);
+  }
+
+  /**
+   * Loads {@code path}, skipping malformed records and reporting them to {@code rejects}, or, when it is
+   * {@code null}, failing on the first one.
+   */
+  CourseTable load(Path path, RejectLog rejects) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      int chunkCount = (int) Math.max(1, (size + chunkBytes - 1) / chunkBytes);
+      long[] recordStarts = findRecordStarts(channel, size, chunkCount);
+      List<CourseTable> chunks = inParallel(chunkCount,
+          i -> parseChunk(channel, recordStarts[i], recordStarts[i + 1], rejects));
+      if (chunks.size() == 1) {
+        return chunks.get(0);
+      }
+      CourseTable table = new CourseTable(chunks.stream().mapToInt(CourseTable::size).sum());
+      for (CourseTable chunk : chunks) {
+        table.appendAll(chunk);
+      }
+      return table;
+    }
+  }
+
+  private long[] findRecordStarts(FileChannel channel, long size, int chunkCount) throws IOException {
+    List<Integer> quoteCounts = inParallel(chunkCount, i -> countQuotes(map(channel, chunkStart(i), chunkEnd(i, size))));
+    boolean[] startsInQuote = new boolean[chunkCount];
+    boolean inQuote = false;
+    for (int i = 0; i < chunkCount; i++) {
+      startsInQuote[i] = inQuote;
+      inQuote ^= (quoteCounts.get(i) & 1) == 1;
+    }
+    List<Long> boundaries = inParallel(chunkCount, i -> {
+      long start = chunkStart(i);
+      int offset = firstRecordBoundary(map(channel, start, chunkEnd(i, size)), startsInQuote[i]);
+      return offset < 0 ? -1L : start + offset;
+    });
+    // Chunk 0 starts with the header, so its first boundary is where the data rows begin.
+    long[] recordStarts = new long[chunkCount + 1];
+    recordStarts[chunkCount] = size;
+    for (int i = chunkCount - 1; i >= 0; i--) {
+      long boundary = boundaries.get(i);
+      recordStarts[i] = boundary < 0 ? recordStarts[i + 1] : boundary;
+    }
+    return recordStarts;
+  }
+
+  private long chunkStart(int chunk) {
+    return chunk * chunkBytes;
+  }
+
+  private long chunkEnd(int chunk, long size) {
+    return Math.min(size, (chunk + 1) * chunkBytes);
+  }
+
+  private CourseTable parseChunk(FileChannel channel, long start, long end, RejectLog rejects) throws IOException {
+    if (start >= end) {
+      return new CourseTable();
+    }
+    MappedByteBuffer buffer = map(channel, start, end);
+    CourseTable table = new CourseTable((int) ((end - start) / ESTIMATED_ROW_BYTES));
+    new CourseCsvParser(buffer, 0, buffer.limit(), start).parseInto(table, rejects);
+    return table;
+  }
+
+  private <T> List<T> inParallel(int count, ChunkFunction<T> function) throws IOException {
+    if (pool == null) {
+      List<T> results = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        results.add(function.apply(i));
+      }
+      return results;
+    }
+    try {
+      return pool.submit(() -> IntStream.range(0, count).parallel()
+          .mapToObj(i -> {
+            try {
+              return function.apply(i);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          })
+          .collect(Collectors.toList())).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while loading dataset", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long start, long end) throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+  }
+
+  private static int countQuotes(MappedByteBuffer buffer) {
+    int count = 0;
+    for (int i = 0, n = buffer.limit(); i < n; i++) {
+      if (buffer.get(i) == '"') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Offset just past the first newline outside quotes in {@code [0, limit)}, or -1 if there is none.
+   */
+  static int firstRecordBoundary(ByteBuffer buffer, boolean inQuote) {
+    for (int i = 0, n = buffer.limit(); i < n; i++) {
+      byte b = buffer.get(i);
+      if (b == '"') {
+        inQuote = !inQuote;
+      } else if (b == '\n' && !inQuote) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  private interface ChunkFunction<T> {
+    T apply(int chunk) throws IOException;
+  }
+}
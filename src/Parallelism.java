@@ -0,0 +1,99 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * How an analyzer spreads loading and aggregation work over threads: the pool to run on and the number of
+ * rows below which work stays on the calling thread, where splitting would cost more than it saves.
+ */
+public final class Parallelism {
+  public static final int DEFAULT_THRESHOLD = 100_000;
+
+  private static final Parallelism SEQUENTIAL = new Parallelism(null, Integer.MAX_VALUE);
+  private static volatile Parallelism defaults;
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  private Parallelism(ForkJoinPool pool, int threshold) {
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Everything runs on the calling thread.
+   */
+  public static Parallelism sequential() {
+    return SEQUENTIAL;
+  }
+
+  /**
+   * Work on at least {@code threshold} rows is split across {@code pool}, which the caller owns.
+   */
+  public static Parallelism using(ForkJoinPool pool, int threshold) {
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be positive: " + threshold);
+    }
+    return new Parallelism(pool, threshold);
+  }
+
+  /**
+   * A shared pool of daemon threads, one per available processor, with {@link #DEFAULT_THRESHOLD}. The pool
+   * is created on first use and kept apart from the common pool so analyzer work does not compete with
+   * unrelated parallel streams.
+   */
+  public static Parallelism defaults() {
+    Parallelism result = defaults;
+    if (result == null) {
+      synchronized (Parallelism.class) {
+        result = defaults;
+        if (result == null) {
+          ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("courses-analyzer-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+          }, null, false);
+          defaults = result = new Parallelism(pool, DEFAULT_THRESHOLD);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * The pool to run on, or {@code null} for sequential execution.
+   */
+  ForkJoinPool pool() {
+    return pool;
+  }
+
+  boolean splits(int rows) {
+    return pool != null && rows >= threshold;
+  }
+
+  /**
+   * Splits {@code [0, rows)} into one contiguous range per pool thread and returns {@code task}'s result for
+   * each range, in range order.
+   */
+  <T> List<T> mapRanges(int rows, RangeTask<T> task) {
+    int parts = Math.max(1, Math.min(pool.getParallelism(), rows));
+    return inPool(parts, part -> task.apply((int) ((long) rows * part / parts), (int) ((long) rows * (part + 1) / parts)));
+  }
+
+  /**
+   * Runs {@code task} for {@code 0 <= part < parts} on the pool and returns the results in part order.
+   */
+  <T> List<T> inPool(int parts, IntFunction<T> task) {
+    return pool.submit(() -> IntStream.range(0, parts).parallel()
+        .mapToObj(task)
+        .collect(Collectors.toList())).join();
+  }
+
+  interface RangeTask<T> {
+    T apply(int from, int to);
+  }
+}
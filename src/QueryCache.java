@@ -0,0 +1,111 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Results of analyzer queries. Parameterless queries are memoized by name until the next invalidation;
+ * parameterized ones live in a size-bounded map keyed by query name and arguments that evicts the least
+ * recently used entry first. Every entry records the dataset version it was computed from, so a result of a
+ * dataset that has since been replaced is never served for the new one, and a newer result overwrites it.
+ *
+ * <p>Lookups never block: two readers that miss on the same key at once may both compute it, and the first
+ * result stored is the one both return. Cached values must be immutable because every caller shares them.
+ */
+class QueryCache {
+  static final int DEFAULT_CAPACITY = 1024;
+
+  private final int capacity;
+  private final Map<String, Entry> memoized = new ConcurrentHashMap<>();
+  private final Map<Object, Entry> recent = new ConcurrentHashMap<>();
+  private final LongAdder hits;
+  private final LongAdder misses;
+
+  QueryCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  QueryCache(int capacity) {
+    this(capacity, new LongAdder(), new LongAdder());
+  }
+
+  /**
+   * A cache that counts its hits and misses into the given adders, e.g. those of {@link AnalyzerMetrics}.
+   */
+  QueryCache(int capacity, LongAdder hits, LongAdder misses) {
+    this.capacity = capacity;
+    this.hits = hits;
+    this.misses = misses;
+  }
+
+  <T> T memoize(String query, long version, Supplier<T> compute) {
+    return get(memoized, query, version, compute);
+  }
+
+  <T> T lookup(Object key, long version, Supplier<T> compute) {
+    T value = get(recent, key, version, compute);
+    if (recent.size() > capacity) {
+      evictLeastRecentlyUsed();
+    }
+    return value;
+  }
+
+  void invalidateAll() {
+    memoized.clear();
+    recent.clear();
+  }
+
+  long hitCount() {
+    return hits.sum();
+  }
+
+  long missCount() {
+    return misses.sum();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <K, T> T get(Map<K, Entry> map, K key, long version, Supplier<T> compute) {
+    Entry entry = map.get(key);
+    if (entry != null && entry.version == version) {
+      entry.lastUsed = System.nanoTime();
+      hits.increment();
+      return (T) entry.value;
+    }
+    misses.increment();
+    T value = compute.get();
+    // a reader still on an older dataset must not replace the entry of a newer one
+    Entry stored = map.compute(key, (k, old) -> old != null && old.version >= version ? old
+        : new Entry(version, value));
+    return stored.version == version ? (T) stored.value : value;
+  }
+
+  /**
+   * Removes the parameterized entries used least recently until the map is back within capacity. The scan
+   * is linear in the capacity, which is small next to the query a miss has just computed.
+   */
+  private void evictLeastRecentlyUsed() {
+    while (recent.size() > capacity) {
+      Map.Entry<Object, Entry> eldest = null;
+      for (Map.Entry<Object, Entry> candidate : recent.entrySet()) {
+        if (eldest == null || candidate.getValue().lastUsed < eldest.getValue().lastUsed) {
+          eldest = candidate;
+        }
+      }
+      if (eldest == null) {
+        return;
+      }
+      recent.remove(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  private static final class Entry {
+    final long version;
+    final Object value;
+    volatile long lastUsed = System.nanoTime();
+
+    Entry(long version, Object value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
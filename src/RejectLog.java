@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the records a lenient load skipped. All of them are counted, but only the {@code capacity}
+ * earliest in the file are kept, by byte offset, so a thoroughly broken file cannot exhaust memory.
+ * Chunks parsed in parallel report concurrently. Line numbers are resolved once at the end by counting
+ * line breaks up to the kept offsets, which keeps that cost off clean loads.
+ */
+final class RejectLog {
+  static final int DEFAULT_CAPACITY = 100;
+
+  private final int capacity;
+  private final PriorityQueue<Entry> earliest =
+      new PriorityQueue<>(Comparator.comparingLong((Entry entry) -> entry.offset).reversed());
+  private long count;
+
+  RejectLog() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  RejectLog(int capacity) {
+    this.capacity = capacity;
+  }
+
+  synchronized void reject(long offset, String reason, String text) {
+    count++;
+    if (earliest.size() < capacity) {
+      earliest.add(new Entry(offset, reason, text));
+    } else if (capacity > 0 && offset < earliest.peek().offset) {
+      earliest.poll();
+      earliest.add(new Entry(offset, reason, text));
+    }
+  }
+
+  synchronized long count() {
+    return count;
+  }
+
+  /**
+   * The kept rejects in file order, with the 1-based line each record of {@code source} starts on.
+   */
+  synchronized List<LoadReport.Reject> resolve(Path source) throws IOException {
+    List<Entry> entries = new ArrayList<>(earliest);
+    entries.sort(Comparator.comparingLong(entry -> entry.offset));
+    List<LoadReport.Reject> rejects = new ArrayList<>(entries.size());
+    if (entries.isEmpty()) {
+      return rejects;
+    }
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+      long position = 0;
+      long line = 1;
+      int next = 0;
+      while (next < entries.size()) {
+        buffer.clear();
+        int read = channel.read(buffer);
+        for (int i = 0; i < Math.max(read, 0) && next < entries.size(); i++, position++) {
+          while (next < entries.size() && entries.get(next).offset == position) {
+            rejects.add(entries.get(next++).toReject(line));
+          }
+          if (buffer.get(i) == '\n') {
+            line++;
+          }
+        }
+        if (read < 0) {
+          while (next < entries.size()) {
+            rejects.add(entries.get(next++).toReject(line));
+          }
+        }
+      }
+    }
+    return rejects;
+  }
+
+  private static final class Entry {
+    final long offset;
+    final String reason;
+    final String text;
+
+    Entry(long offset, String reason, String text) {
+      this.offset = offset;
+      this.reason = reason;
+      this.text = text;
+    }
+
+    LoadReport.Reject toReject(long line) {
+      return new LoadReport.Reject(line, reason, text);
+    }
+  }
+}
@@ -0,0 +1,320 @@
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Prebuilt access paths for {@code searchCourses}.
+ *
+ * <p>Rows are numbered by their position in title order, so walking a set of positions in ascending order
+ * yields titles already sorted, with equal titles next to each other. Each subject keeps a bitset of the
+ * positions that carry it, and {@code percentAudited}/{@code totalHours} keep rows sorted by value so a
+ * range predicate maps to a contiguous slice. A query is driven by whichever of the three is smallest and
+ * only checks the other predicates on those rows. When even the smallest of them covers a large share of
+ * the rows, walking it costs more than a straight scan, so both numeric predicates are evaluated over the
+ * columns in row order with {@link CourseKernels#rangeMask} and only the subject is checked per match.
+ *
+ * <p>Rows appended to the table after the index was built are scanned directly and merged into the result;
+ * {@link #needsRebuild()} tells the owner when that tail has grown large enough to rebuild.
+ */
+class SearchIndex {
+  private static final int MIN_REBUILD_ROWS = 1024;
+  /**
+   * A query scans the columns when its smallest access path covers more than 1/SCAN_FRACTION of the rows.
+   */
+  private static final int SCAN_FRACTION = 4;
+
+  private final CourseTable table;
+  private final int size;
+  private final int[] byTitle;
+  private final int[] positionOf;
+  private final String[] lowerSubjects;
+  private final BitSet[] subjectPositions;
+  private final int[] subjectRowCount;
+  private final int[] byPercentAudited;
+  private final double[] sortedPercentAudited;
+  private final int[] byTotalHours;
+  private final double[] sortedTotalHours;
+
+  SearchIndex(CourseTable table) {
+    this.table = table;
+    this.size = table.size;
+    byTitle = sortByTitle(table);
+    positionOf = new int[size];
+    for (int position = 0; position < size; position++) {
+      positionOf[byTitle[position]] = position;
+    }
+    int subjectCount = table.subjects.size();
+    lowerSubjects = new String[subjectCount];
+    subjectPositions = new BitSet[subjectCount];
+    subjectRowCount = new int[subjectCount];
+    for (int subject = 0; subject < subjectCount; subject++) {
+      lowerSubjects[subject] = table.subjects.decode(subject).toLowerCase();
+      subjectPositions[subject] = new BitSet(size);
+    }
+    for (int position = 0; position < size; position++) {
+      int subject = table.subject[byTitle[position]];
+      subjectPositions[subject].set(position);
+      subjectRowCount[subject]++;
+    }
+    byPercentAudited = sortByValue(table.percentAudited, size);
+    sortedPercentAudited = gather(table.percentAudited, byPercentAudited);
+    byTotalHours = sortByValue(table.totalHours, size);
+    sortedTotalHours = gather(table.totalHours, byTotalHours);
+  }
+
+  private SearchIndex(SearchIndex base, CourseTable table) {
+    this.table = table;
+    size = base.size;
+    byTitle = base.byTitle;
+    positionOf = base.positionOf;
+    lowerSubjects = base.lowerSubjects;
+    subjectPositions = base.subjectPositions;
+    subjectRowCount = base.subjectRowCount;
+    byPercentAudited = base.byPercentAudited;
+    sortedPercentAudited = base.sortedPercentAudited;
+    byTotalHours = base.byTotalHours;
+    sortedTotalHours = base.sortedTotalHours;
+  }
+
+  /**
+   * This index over {@code table}, which extends the indexed table with appended rows.
+   */
+  SearchIndex forTable(CourseTable table) {
+    return new SearchIndex(this, table);
+  }
+
+  List<String> search(String courseSubject, double percentAudited, double totalCourseHours) {
+    String query = courseSubject.toLowerCase();
+    boolean[] subjectMatches = new boolean[lowerSubjects.length];
+    int subjectRows = 0;
+    for (int subject = 0; subject < lowerSubjects.length; subject++) {
+      if (lowerSubjects[subject].contains(query)) {
+        subjectMatches[subject] = true;
+        subjectRows += subjectRowCount[subject];
+      }
+    }
+    int auditedFrom = firstNotBelow(sortedPercentAudited, percentAudited);
+    int hoursTo = firstAbove(sortedTotalHours, totalCourseHours);
+
+    BitSet candidates = new BitSet(size);
+    boolean exact = false;
+    if (Math.min(subjectRows, Math.min(size - auditedFrom, hoursTo)) > size / SCAN_FRACTION) {
+      long[] mask = new long[(size + 63) >>> 6];
+      CourseKernels.get().rangeMask(table.percentAudited, percentAudited, table.totalHours, totalCourseHours,
+          size, mask);
+      for (int word = 0; word < mask.length; word++) {
+        for (long bits = mask[word]; bits != 0; bits &= bits - 1) {
+          int row = (word << 6) + Long.numberOfTrailingZeros(bits);
+          if (subjectMatches[table.subject[row]]) {
+            candidates.set(positionOf[row]);
+          }
+        }
+      }
+      exact = true;
+    } else if (subjectRows <= size - auditedFrom && subjectRows <= hoursTo) {
+      for (int subject = 0; subject < lowerSubjects.length; subject++) {
+        if (subjectMatches[subject]) {
+          candidates.or(subjectPositions[subject]);
+        }
+      }
+    } else if (size - auditedFrom <= hoursTo) {
+      for (int i = auditedFrom; i < size; i++) {
+        candidates.set(positionOf[byPercentAudited[i]]);
+      }
+    } else {
+      for (int i = 0; i < hoursTo; i++) {
+        candidates.set(positionOf[byTotalHours[i]]);
+      }
+    }
+
+    List<String> result = new ArrayList<>();
+    int lastTitle = -1;
+    for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+      int row = byTitle[position];
+      if ((exact || subjectMatches[table.subject[row]]
+          && table.percentAudited[row] >= percentAudited
+          && table.totalHours[row] <= totalCourseHours)
+          && table.title[row] != lastTitle) {
+        lastTitle = table.title[row];
+        result.add(table.titles.decode(lastTitle));
+      }
+    }
+    return table.size > size ? mergeAppended(result, query, percentAudited, totalCourseHours) : result;
+  }
+
+  /**
+   * {@link #search} for every query {@code i} given by {@code courseSubjects[i]}, {@code percentAudited[i]}
+   * and {@code totalCourseHours[i]}, in one walk over the rows in title order that tests each row against
+   * every query. Cheaper than separate searches once there are enough queries that most rows would be
+   * visited anyway.
+   */
+  List<List<String>> searchAll(String[] courseSubjects, double[] percentAudited, double[] totalCourseHours) {
+    int queries = courseSubjects.length;
+    boolean[][] subjectMatches = new boolean[queries][lowerSubjects.length];
+    String[] lowerQueries = new String[queries];
+    for (int q = 0; q < queries; q++) {
+      lowerQueries[q] = courseSubjects[q].toLowerCase();
+      for (int subject = 0; subject < lowerSubjects.length; subject++) {
+        subjectMatches[q][subject] = lowerSubjects[subject].contains(lowerQueries[q]);
+      }
+    }
+    List<List<String>> results = new ArrayList<>(queries);
+    int[] lastTitle = new int[queries];
+    for (int q = 0; q < queries; q++) {
+      results.add(new ArrayList<>());
+      lastTitle[q] = -1;
+    }
+    for (int position = 0; position < size; position++) {
+      int row = byTitle[position];
+      int subject = table.subject[row];
+      int title = table.title[row];
+      double audited = table.percentAudited[row];
+      double hours = table.totalHours[row];
+      for (int q = 0; q < queries; q++) {
+        if (title != lastTitle[q] && subjectMatches[q][subject]
+            && audited >= percentAudited[q] && hours <= totalCourseHours[q]) {
+          lastTitle[q] = title;
+          results.get(q).add(table.titles.decode(title));
+        }
+      }
+    }
+    if (table.size > size) {
+      for (int q = 0; q < queries; q++) {
+        results.set(q, mergeAppended(results.get(q), lowerQueries[q], percentAudited[q], totalCourseHours[q]));
+      }
+    }
+    return results;
+  }
+
+  boolean needsRebuild() {
+    return table.size - size > Math.max(MIN_REBUILD_ROWS, size / 8);
+  }
+
+  private List<String> mergeAppended(List<String> indexed, String query, double percentAudited,
+                                     double totalCourseHours) {
+    TreeSet<String> appended = new TreeSet<>();
+    for (int row = size; row < table.size; row++) {
+      if (table.percentAudited[row] >= percentAudited
+          && table.totalHours[row] <= totalCourseHours
+          && table.subjectOf(row).toLowerCase().contains(query)) {
+        appended.add(table.titleOf(row));
+      }
+    }
+    if (appended.isEmpty()) {
+      return indexed;
+    }
+    List<String> merged = new ArrayList<>(indexed.size() + appended.size());
+    Iterator<String> tail = appended.iterator();
+    String next = tail.next();
+    for (String title : indexed) {
+      while (next != null && next.compareTo(title) < 0) {
+        merged.add(next);
+        next = tail.hasNext() ? tail.next() : null;
+      }
+      if (next != null && next.equals(title)) {
+        next = tail.hasNext() ? tail.next() : null;
+      }
+      merged.add(title);
+    }
+    while (next != null) {
+      merged.add(next);
+      next = tail.hasNext() ? tail.next() : null;
+    }
+    return merged;
+  }
+
+  private static int[] sortByTitle(CourseTable table) {
+    int titleCount = table.titles.size();
+    int[] start = new int[titleCount + 1];
+    for (int row = 0; row < table.size; row++) {
+      start[table.title[row] + 1]++;
+    }
+    int offset = 0;
+    for (int title : table.titlesInOrder()) {
+      int rows = start[title + 1];
+      start[title + 1] = offset;
+      offset += rows;
+    }
+    int[] rows = new int[table.size];
+    for (int row = 0; row < table.size; row++) {
+      rows[start[table.title[row] + 1]++] = row;
+    }
+    return rows;
+  }
+
+  /**
+   * Row ids ordered by {@link Double#compare} on {@code column}, using a bottom-up merge sort on primitive
+   * arrays; ties keep row order.
+   */
+  private static int[] sortByValue(double[] column, int size) {
+    int[] rows = new int[size];
+    int[] buffer = new int[size];
+    for (int row = 0; row < size; row++) {
+      rows[row] = row;
+    }
+    for (int width = 1; width < size; width *= 2) {
+      for (int low = 0; low < size; low += 2 * width) {
+        int mid = Math.min(low + width, size);
+        int high = Math.min(low + 2 * width, size);
+        int left = low;
+        int right = mid;
+        for (int i = low; i < high; i++) {
+          if (left < mid && (right >= high || Double.compare(column[rows[left]], column[rows[right]]) <= 0)) {
+            buffer[i] = rows[left++];
+          } else {
+            buffer[i] = rows[right++];
+          }
+        }
+      }
+      int[] swap = rows;
+      rows = buffer;
+      buffer = swap;
+    }
+    return rows;
+  }
+
+  private static double[] gather(double[] column, int[] rows) {
+    double[] values = new double[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      values[i] = column[rows[i]];
+    }
+    return values;
+  }
+
+  /**
+   * Index of the first value that is not {@code < bound}; values from there on satisfy {@code >= bound}
+   * (apart from trailing NaNs, which the row check filters out).
+   */
+  private static int firstNotBelow(double[] sorted, double bound) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] < bound) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Index of the first value that is not {@code <= bound}.
+   */
+  private static int firstAbove(double[] sorted, double bound) {
+    int low = 0;
+    int high = sorted.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (sorted[mid] <= bound) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
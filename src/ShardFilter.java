@@ -0,0 +1,121 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+
+/**
+ * Restricts a {@link ShardedCourses} query to a year range, a launch date range, and sets of institutions
+ * and subjects, each optional. A filter is immutable; every method returns a narrowed copy, e.g.
+ * {@code ShardFilter.all().institutions("MITx").years(2, 3)}.
+ */
+public final class ShardFilter {
+  private static final ShardFilter ALL =
+      new ShardFilter(Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, null, null);
+
+  final int minYear;
+  final int maxYear;
+  final int minLaunchDay;
+  final int maxLaunchDay;
+  final Set<String> institutions;
+  final Set<String> subjects;
+
+  private ShardFilter(int minYear, int maxYear, int minLaunchDay, int maxLaunchDay, Set<String> institutions,
+                      Set<String> subjects) {
+    this.minYear = minYear;
+    this.maxYear = maxYear;
+    this.minLaunchDay = minLaunchDay;
+    this.maxLaunchDay = maxLaunchDay;
+    this.institutions = institutions;
+    this.subjects = subjects;
+  }
+
+  public static ShardFilter all() {
+    return ALL;
+  }
+
+  /**
+   * Courses whose year column is in {@code [from, to]}.
+   */
+  public ShardFilter years(int from, int to) {
+    return new ShardFilter(Math.max(minYear, from), Math.min(maxYear, to), minLaunchDay, maxLaunchDay, institutions,
+        subjects);
+  }
+
+  /**
+   * Courses launched on a day in {@code [from, to]}.
+   */
+  public ShardFilter launchedBetween(LocalDate from, LocalDate to) {
+    return new ShardFilter(minYear, maxYear, Math.max(minLaunchDay, (int) from.toEpochDay()),
+        Math.min(maxLaunchDay, (int) to.toEpochDay()), institutions, subjects);
+  }
+
+  public ShardFilter institutions(String... names) {
+    return new ShardFilter(minYear, maxYear, minLaunchDay, maxLaunchDay, intersect(institutions, names), subjects);
+  }
+
+  public ShardFilter subjects(String... names) {
+    return new ShardFilter(minYear, maxYear, minLaunchDay, maxLaunchDay, institutions, intersect(subjects, names));
+  }
+
+  /**
+   * Whether some row described by {@code stats} could match; {@code false} means the shard can be skipped.
+   */
+  boolean mayMatch(ShardStats stats) {
+    return stats.rows > 0
+        && stats.minYear <= maxYear && stats.maxYear >= minYear
+        && stats.minLaunchDay <= maxLaunchDay && stats.maxLaunchDay >= minLaunchDay
+        && anyBetween(institutions, stats.minInstitution, stats.maxInstitution)
+        && anyBetween(subjects, stats.minSubject, stats.maxSubject);
+  }
+
+  /**
+   * Whether every row described by {@code stats} matches, so the shard's aggregates can be used unfiltered.
+   */
+  boolean matchesAll(ShardStats stats) {
+    return minYear <= stats.minYear && stats.maxYear <= maxYear
+        && minLaunchDay <= stats.minLaunchDay && stats.maxLaunchDay <= maxLaunchDay
+        && (institutions == null
+            || stats.minInstitution.equals(stats.maxInstitution) && institutions.contains(stats.minInstitution))
+        && (subjects == null || stats.minSubject.equals(stats.maxSubject) && subjects.contains(stats.minSubject));
+  }
+
+  /**
+   * The rows of {@code table} this filter accepts.
+   */
+  IntPredicate rows(CourseTable table) {
+    boolean[] institutionOk = accepted(institutions, table.institutions);
+    boolean[] subjectOk = accepted(subjects, table.subjects);
+    return row -> table.year[row] >= minYear && table.year[row] <= maxYear
+        && table.launchDay[row] >= minLaunchDay && table.launchDay[row] <= maxLaunchDay
+        && institutionOk[table.institution[row]] && subjectOk[table.subject[row]];
+  }
+
+  private static boolean[] accepted(Set<String> names, StringDictionary dictionary) {
+    boolean[] accepted = new boolean[dictionary.size()];
+    for (int code = 0; code < accepted.length; code++) {
+      accepted[code] = names == null || names.contains(dictionary.decode(code));
+    }
+    return accepted;
+  }
+
+  private static boolean anyBetween(Set<String> names, String min, String max) {
+    if (names == null) {
+      return true;
+    }
+    for (String name : names) {
+      if (name.compareTo(min) >= 0 && name.compareTo(max) <= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Set<String> intersect(Set<String> current, String[] names) {
+    Set<String> narrowed = new TreeSet<>(Arrays.asList(names));
+    if (current != null) {
+      narrowed.retainAll(current);
+    }
+    return narrowed;
+  }
+}
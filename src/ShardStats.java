@@ -0,0 +1,155 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Min/max statistics of one CSV shard, enough to rule the shard out of a query without loading it: year,
+ * launch day, institution and subject ranges, plus the bounds {@code searchCourses} tests against.
+ *
+ * <p>They are kept next to the shard as {@code <shard>.stats}, stamped with the shard's size and
+ * modification time like a {@link CourseSnapshot}, and ignored once the shard changes.
+ */
+final class ShardStats {
+  static final int MAGIC = 0x4f435353;
+  static final int VERSION = 2;
+
+  final int rows;
+  final int minYear;
+  final int maxYear;
+  final int minLaunchDay;
+  final int maxLaunchDay;
+  final String minInstitution;
+  final String maxInstitution;
+  final String minSubject;
+  final String maxSubject;
+  final double maxPercentAudited;
+  final double minTotalHours;
+
+  private ShardStats(int rows, int minYear, int maxYear, int minLaunchDay, int maxLaunchDay, String minInstitution,
+                     String maxInstitution, String minSubject, String maxSubject, double maxPercentAudited,
+                     double minTotalHours) {
+    this.rows = rows;
+    this.minYear = minYear;
+    this.maxYear = maxYear;
+    this.minLaunchDay = minLaunchDay;
+    this.maxLaunchDay = maxLaunchDay;
+    this.minInstitution = minInstitution;
+    this.maxInstitution = maxInstitution;
+    this.minSubject = minSubject;
+    this.maxSubject = maxSubject;
+    this.maxPercentAudited = maxPercentAudited;
+    this.minTotalHours = minTotalHours;
+  }
+
+  static ShardStats of(CourseTable table) {
+    int minYear = Integer.MAX_VALUE;
+    int maxYear = Integer.MIN_VALUE;
+    int minLaunchDay = Integer.MAX_VALUE;
+    int maxLaunchDay = Integer.MIN_VALUE;
+    double maxPercentAudited = Double.NEGATIVE_INFINITY;
+    double minTotalHours = Double.POSITIVE_INFINITY;
+    for (int row = 0; row < table.size; row++) {
+      minYear = Math.min(minYear, table.year[row]);
+      maxYear = Math.max(maxYear, table.year[row]);
+      minLaunchDay = Math.min(minLaunchDay, table.launchDay[row]);
+      maxLaunchDay = Math.max(maxLaunchDay, table.launchDay[row]);
+      // a NaN never satisfies a search, and Math.max/min would make it the bound of the whole shard
+      if (!Double.isNaN(table.percentAudited[row])) {
+        maxPercentAudited = Math.max(maxPercentAudited, table.percentAudited[row]);
+      }
+      if (!Double.isNaN(table.totalHours[row])) {
+        minTotalHours = Math.min(minTotalHours, table.totalHours[row]);
+      }
+    }
+    return new ShardStats(table.size, minYear, maxYear, minLaunchDay, maxLaunchDay, min(table.institutions),
+        max(table.institutions), min(table.subjects), max(table.subjects), maxPercentAudited, minTotalHours);
+  }
+
+  /**
+   * Whether a row of the shard could satisfy {@code searchCourses(courseSubject, percentAudited,
+   * totalCourseHours)}. The subject test is a substring match, so the subject range only rules a shard out
+   * when it holds a single subject.
+   */
+  boolean maySatisfySearch(String courseSubject, double percentAudited, double totalCourseHours) {
+    return rows > 0 && maxPercentAudited >= percentAudited && minTotalHours <= totalCourseHours
+        && (!minSubject.equals(maxSubject) || minSubject.toLowerCase().contains(courseSubject.toLowerCase()));
+  }
+
+  /**
+   * Writes these statistics to {@code file}, stamped with {@code shard}, the version of the shard taken
+   * before it was parsed. They go to a uniquely named temporary file first, so processes writing the same
+   * statistics at once each move a whole file into place and the last one wins.
+   */
+  void write(Path file, CourseSnapshot.Fingerprint shard) throws IOException {
+    Path partial = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(shard.size);
+        out.writeLong(shard.modified);
+        out.writeInt(rows);
+        out.writeInt(minYear);
+        out.writeInt(maxYear);
+        out.writeInt(minLaunchDay);
+        out.writeInt(maxLaunchDay);
+        out.writeUTF(minInstitution);
+        out.writeUTF(maxInstitution);
+        out.writeUTF(minSubject);
+        out.writeUTF(maxSubject);
+        out.writeDouble(maxPercentAudited);
+        out.writeDouble(minTotalHours);
+      }
+      Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(partial);
+    }
+  }
+
+  /**
+   * The statistics stored in {@code file}, or {@code null} when it is missing, of another format version,
+   * taken from a different version of {@code shard}, or truncated.
+   */
+  static ShardStats read(Path file, Path shard) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION
+          || in.readLong() != Files.size(shard)
+          || in.readLong() != Files.getLastModifiedTime(shard).toMillis()) {
+        return null;
+      }
+      return new ShardStats(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readUTF(),
+          in.readUTF(), in.readUTF(), in.readUTF(), in.readDouble(), in.readDouble());
+    } catch (NoSuchFileException | EOFException e) {
+      return null;
+    }
+  }
+
+  private static String min(StringDictionary dictionary) {
+    String min = "";
+    for (int code = 0; code < dictionary.size(); code++) {
+      String value = dictionary.decode(code);
+      if (code == 0 || value.compareTo(min) < 0) {
+        min = value;
+      }
+    }
+    return min;
+  }
+
+  private static String max(StringDictionary dictionary) {
+    String max = "";
+    for (int code = 0; code < dictionary.size(); code++) {
+      String value = dictionary.decode(code);
+      if (value.compareTo(max) > 0) {
+        max = value;
+      }
+    }
+    return max;
+  }
+}
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Courses split over a directory of CSV shards, e.g. one per institution and year. Every shard keeps
+ * {@link ShardStats} in a {@code .stats} file beside it; queries check a {@link ShardFilter} and their own
+ * parameters against those statistics, skip the shards ruled out, and load the remaining ones in parallel
+ * on first touch. Shards whose statistics are missing or stale are loaded when the directory is opened.
+ *
+ * <p>Within a shard that the filter only partly covers, rows are filtered one by one; a shard it covers
+ * entirely answers from its precomputed aggregates and search index.
+ */
+public final class ShardedCourses {
+  static final String STATS_SUFFIX = ".stats";
+
+  private final List<Shard> shards;
+  private final Parallelism parallelism;
+
+  private ShardedCourses(List<Shard> shards, Parallelism parallelism) {
+    this.shards = shards;
+    this.parallelism = parallelism;
+  }
+
+  public static ShardedCourses open(Path directory) throws IOException {
+    return open(directory, Parallelism.defaults());
+  }
+
+  /**
+   * Opens the {@code *.csv} files directly in {@code directory}, loading shards on the pool of
+   * {@code parallelism}.
+   */
+  public static ShardedCourses open(Path directory, Parallelism parallelism) throws IOException {
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(directory)) {
+      files = listing.filter(file -> file.getFileName().toString().endsWith(".csv") && Files.isRegularFile(file))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+    List<Shard> shards = new ArrayList<>(files.size());
+    for (Path file : files) {
+      shards.add(new Shard(file, ShardStats.read(statsFile(file), file)));
+    }
+    ShardedCourses courses = new ShardedCourses(shards, parallelism);
+    try {
+      courses.load(shard -> shard.stats == null);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return courses;
+  }
+
+  public int shardCount() {
+    return shards.size();
+  }
+
+  /**
+   * How many shards have been read so far.
+   */
+  public int loadedShardCount() {
+    return (int) shards.stream().filter(shard -> shard.data != null).count();
+  }
+
+  public Map<String, Integer> getPtcpCountByInst(ShardFilter filter) {
+    Map<String, Integer> totals = new TreeMap<>();
+    for (Shard shard : load(shard -> filter.mayMatch(shard.stats))) {
+      CourseTable table = shard.data.table;
+      if (filter.matchesAll(shard.stats)) {
+        int[] byInstitution = shard.data.aggregates.participantsByInstitution;
+        for (int institution = 0; institution < table.institutions.size(); institution++) {
+          totals.merge(table.institutions.decode(institution), byInstitution[institution], Integer::sum);
+        }
+      } else {
+        IntPredicate rows = filter.rows(table);
+        for (int row = 0; row < table.size; row++) {
+          if (rows.test(row)) {
+            totals.merge(table.institutionOf(row), table.participants[row], Integer::sum);
+          }
+        }
+      }
+    }
+    return Collections.unmodifiableMap(new LinkedHashMap<>(totals));
+  }
+
+  public Map<String, Integer> getPtcpCountByInstAndSubject(ShardFilter filter) {
+    Map<String, Integer> totals = new HashMap<>();
+    for (Shard shard : load(shard -> filter.mayMatch(shard.stats))) {
+      CourseTable table = shard.data.table;
+      if (filter.matchesAll(shard.stats)) {
+        CourseAggregates aggregates = shard.data.aggregates;
+        for (int institution = 0; institution < table.institutions.size(); institution++) {
+          int[] bySubject = aggregates.participantsByInstitutionAndSubject[institution];
+          boolean[] present = aggregates.hasInstitutionAndSubject[institution];
+          for (int subject = 0; subject < bySubject.length; subject++) {
+            if (present[subject]) {
+              totals.merge(table.institutions.decode(institution) + "-" + table.subjects.decode(subject),
+                  bySubject[subject], Integer::sum);
+            }
+          }
+        }
+      } else {
+        IntPredicate rows = filter.rows(table);
+        for (int row = 0; row < table.size; row++) {
+          if (rows.test(row)) {
+            totals.merge(table.institutionOf(row) + "-" + table.subjectOf(row), table.participants[row],
+                Integer::sum);
+          }
+        }
+      }
+    }
+    return OnlineCoursesAnalyzer.sortedByValue(totals);
+  }
+
+  public List<String> searchCourses(String courseSubject, double percentAudited, double totalCourseHours) {
+    return searchCourses(ShardFilter.all(), courseSubject, percentAudited, totalCourseHours);
+  }
+
+  public List<String> searchCourses(ShardFilter filter, String courseSubject, double percentAudited,
+                                    double totalCourseHours) {
+    String query = courseSubject.toLowerCase();
+    Set<String> titles = new TreeSet<>();
+    for (Shard shard : load(shard -> filter.mayMatch(shard.stats)
+        && shard.stats.maySatisfySearch(courseSubject, percentAudited, totalCourseHours))) {
+      if (filter.matchesAll(shard.stats)) {
+        titles.addAll(shard.data.searchIndex.search(courseSubject, percentAudited, totalCourseHours));
+        continue;
+      }
+      CourseTable table = shard.data.table;
+      IntPredicate rows = filter.rows(table);
+      for (int row = 0; row < table.size; row++) {
+        if (table.percentAudited[row] >= percentAudited && table.totalHours[row] <= totalCourseHours
+            && rows.test(row) && table.subjectOf(row).toLowerCase().contains(query)) {
+          titles.add(table.titleOf(row));
+        }
+      }
+    }
+    return List.copyOf(titles);
+  }
+
+  /**
+   * An analyzer over the rows of every shard, in shard name order, for the queries that need all of them.
+   */
+  public OnlineCoursesAnalyzer analyzer() {
+    List<Shard> all = load(shard -> true);
+    CourseTable table = new CourseTable(all.stream().mapToInt(shard -> shard.data.table.size).sum());
+    for (Shard shard : all) {
+      table.appendAll(shard.data.table);
+    }
+    return new OnlineCoursesAnalyzer(table, parallelism, new AnalyzerMetrics());
+  }
+
+  /**
+   * The shards {@code selected} accepts, in name order, each loaded; unloaded ones are read in parallel.
+   */
+  private List<Shard> load(Predicate<Shard> selected) {
+    List<Shard> chosen = shards.stream().filter(selected).collect(Collectors.toList());
+    List<Shard> missing = chosen.stream().filter(shard -> shard.data == null).collect(Collectors.toList());
+    if (missing.size() > 1 && parallelism.pool() != null) {
+      parallelism.inPool(missing.size(), i -> missing.get(i).load(parallelism));
+    } else {
+      for (Shard shard : missing) {
+        shard.load(parallelism);
+      }
+    }
+    return chosen;
+  }
+
+  private static Path statsFile(Path shard) {
+    return shard.resolveSibling(shard.getFileName() + STATS_SUFFIX);
+  }
+
+  private static final class Shard {
+    final Path file;
+    volatile ShardStats stats;
+    volatile CourseDataset data;
+
+    Shard(Path file, ShardStats stats) {
+      this.file = file;
+      this.stats = stats;
+    }
+
+    synchronized CourseDataset load(Parallelism parallelism) {
+      if (data == null) {
+        try {
+          CourseSnapshot.Fingerprint source = CourseSnapshot.Fingerprint.of(file);
+          CourseTable table = new ParallelCsvLoader(parallelism).load(file);
+          if (stats == null) {
+            stats = ShardStats.of(table);
+            try {
+              stats.write(statsFile(file), source);
+            } catch (IOException e) {
+              // a read-only directory only costs loading this shard again on the next open
+            }
+          }
+          data = CourseDataset.of(0, table, Parallelism.sequential());
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return data;
+    }
+  }
+}
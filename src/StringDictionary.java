@@ -0,0 +1,135 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps each distinct string of a column to a dense int code, in first-seen order.
+ *
+ * <p>Values are keyed by their UTF-8 bytes in an open-addressing table, so the loader can look up a field
+ * straight from its byte region; a {@code String} is only created the first time a value is seen.
+ *
+ * <p>Codes are never reassigned, so {@link #copyForAppend()} can share the per-code arrays with the
+ * original and only copy the hash slots.
+ */
+class StringDictionary {
+  private static final int INITIAL_SLOTS = 64;
+
+  private int[] slots = new int[INITIAL_SLOTS];
+  private int[] hashes = new int[INITIAL_SLOTS];
+  private byte[][] bytes = new byte[INITIAL_SLOTS][];
+  private String[] values = new String[INITIAL_SLOTS];
+  private int size;
+
+  StringDictionary() {
+  }
+
+  private StringDictionary(StringDictionary base) {
+    slots = base.slots.clone();
+    hashes = base.hashes;
+    bytes = base.bytes;
+    values = base.values;
+    size = base.size;
+  }
+
+  /**
+   * A copy that new values can be added to while readers keep using this dictionary. Only the newest
+   * copy of a dictionary may be added to.
+   */
+  StringDictionary copyForAppend() {
+    return new StringDictionary(this);
+  }
+
+  int encode(String value) {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    int hash = hash(utf8, 0, utf8.length);
+    int code = find(utf8, 0, utf8.length, hash);
+    return code >= 0 ? code : add(utf8, value, hash);
+  }
+
+  /**
+   * Code of the UTF-8 value in {@code region[from, to)}, adding it if it is new; the region is only
+   * copied in that case.
+   */
+  int encode(byte[] region, int from, int to) {
+    int hash = hash(region, from, to);
+    int code = find(region, from, to, hash);
+    if (code >= 0) {
+      return code;
+    }
+    return add(Arrays.copyOfRange(region, from, to), new String(region, from, to - from, StandardCharsets.UTF_8), hash);
+  }
+
+  /**
+   * Code of value {@code code} of {@code other} in this dictionary, adding it if it is new.
+   */
+  int encode(StringDictionary other, int code) {
+    byte[] utf8 = other.bytes[code];
+    int hash = other.hashes[code];
+    int own = find(utf8, 0, utf8.length, hash);
+    return own >= 0 ? own : add(utf8, other.values[code], hash);
+  }
+
+  int codeOf(String value) {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    return find(utf8, 0, utf8.length, hash(utf8, 0, utf8.length));
+  }
+
+  String decode(int code) {
+    if (code >= size) {
+      throw new IndexOutOfBoundsException("No value for code " + code);
+    }
+    return values[code];
+  }
+
+  int size() {
+    return size;
+  }
+
+  private int find(byte[] region, int from, int to, int hash) {
+    int mask = slots.length - 1;
+    for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      int code = slots[slot] - 1;
+      if (hashes[code] == hash && Arrays.equals(bytes[code], 0, bytes[code].length, region, from, to)) {
+        return code;
+      }
+    }
+    return -1;
+  }
+
+  private int add(byte[] utf8, String value, int hash) {
+    if (size == values.length) {
+      hashes = Arrays.copyOf(hashes, size * 2);
+      bytes = Arrays.copyOf(bytes, size * 2);
+      values = Arrays.copyOf(values, size * 2);
+    }
+    int code = size++;
+    hashes[code] = hash;
+    bytes[code] = utf8;
+    values[code] = value;
+    if (size * 2 > slots.length) {
+      slots = new int[slots.length * 2];
+      for (int i = 0; i < size; i++) {
+        place(i);
+      }
+    } else {
+      place(code);
+    }
+    return code;
+  }
+
+  private void place(int code) {
+    int mask = slots.length - 1;
+    int slot = hashes[code] & mask;
+    while (slots[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    slots[slot] = code + 1;
+  }
+
+  private static int hash(byte[] region, int from, int to) {
+    int hash = 0;
+    for (int i = from; i < to; i++) {
+      hash = 31 * hash + region[i];
+    }
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * A merging t-digest (Dunning and Ertl) for quantiles of a stream of doubles. Incoming values are buffered
+ * and periodically merged into centroids sorted by mean, where the arcsine scale function limits every
+ * centroid to one unit of {@code k(q) = compression / (2 pi) * asin(2q - 1)}. Centroids are therefore small
+ * near the tails and at most about {@code 2 pi sqrt(q (1 - q)) / compression} of the total weight around
+ * quantile {@code q}, which {@link #rankError(double)} reports as the rank uncertainty of an estimate.
+ */
+final class TDigest {
+  private final double compression;
+  private final double normalizer;
+  private double[] means = new double[16];
+  private double[] weights = new double[16];
+  private int centroids;
+  private final double[] buffer;
+  private int buffered;
+  private double totalWeight;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  TDigest(double compression) {
+    if (!(compression >= 10)) {
+      throw new IllegalArgumentException("compression must be at least 10: " + compression);
+    }
+    this.compression = compression;
+    normalizer = compression / (2 * Math.PI);
+    buffer = new double[(int) (5 * compression)];
+  }
+
+  void add(double value) {
+    if (Double.isNaN(value)) {
+      return;
+    }
+    if (buffered == buffer.length) {
+      merge();
+    }
+    buffer[buffered++] = value;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+  }
+
+  long count() {
+    return (long) (totalWeight + buffered);
+  }
+
+  /**
+   * The estimated value at quantile {@code q} in [0, 1], interpolating between centroid means; NaN if
+   * nothing was added.
+   */
+  double quantile(double q) {
+    merge();
+    if (centroids == 0) {
+      return Double.NaN;
+    }
+    if (q <= 0) {
+      return min;
+    }
+    if (q >= 1) {
+      return max;
+    }
+    double index = q * totalWeight;
+    if (index < weights[0] / 2) {
+      return min + (means[0] - min) * index / (weights[0] / 2);
+    }
+    double cumulative = weights[0] / 2;
+    for (int i = 0; i + 1 < centroids; i++) {
+      double step = (weights[i] + weights[i + 1]) / 2;
+      if (cumulative + step > index) {
+        return means[i] + (means[i + 1] - means[i]) * (index - cumulative) / step;
+      }
+      cumulative += step;
+    }
+    double last = weights[centroids - 1] / 2;
+    double fraction = last == 0 ? 1 : Math.min(1, (index - cumulative) / last);
+    return means[centroids - 1] + (max - means[centroids - 1]) * fraction;
+  }
+
+  /**
+   * A heuristic bound on the quantile distance between {@code q} and the true rank of
+   * {@link #quantile(double) quantile(q)}, from the centroid size limit; it is not a probabilistic guarantee.
+   */
+  double rankError(double q) {
+    double clamped = Math.min(Math.max(q, 0), 1);
+    return 2 * Math.PI * Math.sqrt(clamped * (1 - clamped)) / compression + 1 / Math.max(1, totalWeight);
+  }
+
+  private void merge() {
+    if (buffered == 0) {
+      return;
+    }
+    Arrays.sort(buffer, 0, buffered);
+    int count = centroids + buffered;
+    double[] mergedMeans = new double[Math.max(16, count)];
+    double[] mergedWeights = new double[mergedMeans.length];
+    double total = totalWeight + buffered;
+    int out = -1;
+    double weightBefore = 0;
+    double limit = 0;
+    int centroid = 0;
+    int value = 0;
+    while (centroid < centroids || value < buffered) {
+      boolean takeCentroid = value == buffered || centroid < centroids && means[centroid] <= buffer[value];
+      double mean = takeCentroid ? means[centroid] : buffer[value];
+      double weight = takeCentroid ? weights[centroid++] : 1;
+      if (!takeCentroid) {
+        value++;
+      }
+      if (out >= 0 && (weightBefore + mergedWeights[out] + weight) / total <= limit) {
+        double combined = mergedWeights[out] + weight;
+        mergedMeans[out] += (mean - mergedMeans[out]) * weight / combined;
+        mergedWeights[out] = combined;
+      } else {
+        if (out >= 0) {
+          weightBefore += mergedWeights[out];
+        }
+        out++;
+        mergedMeans[out] = mean;
+        mergedWeights[out] = weight;
+        limit = quantileOfScale(scale(weightBefore / total) + 1);
+      }
+    }
+    means = mergedMeans;
+    weights = mergedWeights;
+    centroids = out + 1;
+    totalWeight = total;
+    buffered = 0;
+  }
+
+  private double scale(double q) {
+    return normalizer * Math.asin(2 * q - 1);
+  }
+
+  private double quantileOfScale(double k) {
+    return k >= normalizer * Math.PI / 2 ? 1 : (Math.sin(k / normalizer) + 1) / 2;
+  }
+}
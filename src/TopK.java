@@ -0,0 +1,78 @@
+/**
+ * Bounded selection of the {@code k} best ids under an {@link Order}, without sorting all candidates.
+ * The heap keeps the worst retained id at its root so each offer costs at most {@code O(log k)}.
+ */
+class TopK {
+  private final int[] heap;
+  private final Order order;
+  private int size;
+
+  TopK(int k, Order order) {
+    this.heap = new int[Math.max(k, 0)];
+    this.order = order;
+  }
+
+  void offer(int id) {
+    if (size < heap.length) {
+      heap[size] = id;
+      siftUp(size++);
+    } else if (size > 0 && order.compare(id, heap[0]) < 0) {
+      heap[0] = id;
+      siftDown(0);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Drains the heap, best id first.
+   */
+  int[] toSortedArray() {
+    int[] sorted = new int[size];
+    for (int i = sorted.length - 1; i >= 0; i--) {
+      sorted[i] = heap[0];
+      heap[0] = heap[--size];
+      siftDown(0);
+    }
+    return sorted;
+  }
+
+  private void siftUp(int index) {
+    int id = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (order.compare(id, heap[parent]) <= 0) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = id;
+  }
+
+  private void siftDown(int index) {
+    int id = heap[index];
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && order.compare(heap[child + 1], heap[child]) > 0) {
+        child++;
+      }
+      if (order.compare(id, heap[child]) >= 0) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = id;
+  }
+
+  /**
+   * Negative when {@code a} ranks before {@code b}.
+   */
+  interface Order {
+    int compare(int a, int b);
+  }
+}
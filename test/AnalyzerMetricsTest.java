@@ -0,0 +1,102 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalyzerMetricsTest {
+
+    @Test
+    void testLoadAndQueriesAreRecorded() {
+        AnalyzerMetrics metrics = new AnalyzerMetrics();
+        List<AnalyzerMetrics.Operation> completed = new ArrayList<>();
+        long[] loaded = new long[1];
+        metrics.addListener(new MetricsListener() {
+            @Override
+            public void operationCompleted(AnalyzerMetrics.Operation operation, long nanos, long allocatedBytes) {
+                completed.add(operation);
+            }
+
+            @Override
+            public void rowsLoaded(long rows, long rejected) {
+                loaded[0] += rows;
+            }
+        });
+        metrics.setTrackAllocations(true);
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer("resources/local.csv", Parallelism.sequential(),
+                metrics);
+        analyzer.getCourses(10, "hours");
+        analyzer.getCourses(10, "hours");
+        analyzer.recommendCourses(25, 1, 1);
+
+        assertEquals(List.of(AnalyzerMetrics.Operation.PARSE, AnalyzerMetrics.Operation.INDEX,
+                AnalyzerMetrics.Operation.GET_COURSES, AnalyzerMetrics.Operation.GET_COURSES,
+                AnalyzerMetrics.Operation.RECOMMEND_COURSES), completed);
+        assertEquals(288, loaded[0]);
+        assertEquals(288, metrics.getRowsLoaded());
+        assertEquals(1, metrics.getCacheHits());
+        assertEquals(2, metrics.getCacheMisses());
+        OperationStats getCourses = metrics.stats(AnalyzerMetrics.Operation.GET_COURSES);
+        assertEquals(2, getCourses.getCount());
+        assertTrue(getCourses.getP50Nanos() > 0 && getCourses.getP50Nanos() <= getCourses.getMaxNanos());
+        assertTrue(metrics.stats(AnalyzerMetrics.Operation.PARSE).getAllocatedBytes() > 0);
+        assertEquals(0, metrics.stats(AnalyzerMetrics.Operation.SEARCH_COURSES).getCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getOperations().get("getCourses").getCount());
+    }
+
+    @Test
+    void testExposedThroughJmx() throws Exception {
+        AnalyzerMetrics metrics = new AnalyzerMetrics();
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer("resources/local.csv", Parallelism.sequential(),
+                metrics);
+        analyzer.searchCourses("computer", 20, 700);
+        ObjectName name = metrics.registerMBean("jmx-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(288L, server.getAttribute(name, "RowsLoaded"));
+            TabularData operations = (TabularData) server.getAttribute(name, "Operations");
+            CompositeData search = (CompositeData) operations.get(new Object[]{"searchCourses"}).get("value");
+            assertEquals(1L, search.get("count"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "RowsLoaded"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void testJfrEventsWhenEnabled(@TempDir Path dir) throws Exception {
+        AnalyzerMetrics metrics = new AnalyzerMetrics();
+        metrics.setJfrEvents(true);
+        Path file = dir.resolve("analyzer.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("OnlineCoursesAnalyzer.Operation").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+            OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer("resources/local.csv",
+                    Parallelism.sequential(), metrics);
+            analyzer.getPtcpCountByInst();
+            analyzer.getPtcpCountByInst();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(List.of("parse", "index", "getPtcpCountByInst", "getPtcpCountByInst"),
+                events.stream().map(event -> event.getString("operation")).collect(Collectors.toList()));
+        assertEquals(List.of(288L, 288L, 288L, -1L),
+                events.stream().map(event -> event.getLong("rows")).collect(Collectors.toList()));
+    }
+}
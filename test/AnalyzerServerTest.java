@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalyzerServerTest {
+    private static OnlineCoursesAnalyzer analyzer;
+    private static AnalyzerServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void start() throws IOException {
+        analyzer = new OnlineCoursesAnalyzer("resources/local.csv");
+        server = AnalyzerServer.start(analyzer, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stop() {
+        server.close();
+    }
+
+    @Test
+    void testEndpointsMatchAnalyzer() throws Exception {
+        Map<String, Double> byInst = new LinkedHashMap<>();
+        analyzer.getPtcpCountByInst().forEach((key, value) -> byInst.put(key, (double) value));
+        assertEquals(byInst, JsonReader.parse(get("/ptcpCountByInst").body()));
+
+        Map<?, ?> byInstructor = (Map<?, ?>) JsonReader.parse(get("/courseListOfInstructor").body());
+        assertEquals(analyzer.getCourseListOfInstructor(), byInstructor);
+
+        assertEquals(analyzer.getCourses(10, "hours"), JsonReader.parse(get("/courses?topK=10&by=hours").body()));
+        assertEquals(analyzer.searchCourses("computer science", 20, 700),
+                JsonReader.parse(get("/searchCourses?courseSubject=computer+science&percentAudited=20"
+                        + "&totalCourseHours=700").body()));
+        HttpResponse<String> recommended = get("/recommendCourses?age=25&gender=1&isBachelorOrHigher=1");
+        assertEquals("application/json; charset=utf-8", recommended.headers().firstValue("Content-Type").orElse(""));
+        assertEquals(analyzer.recommendCourses(25, 1, 1), JsonReader.parse(recommended.body()));
+    }
+
+    @Test
+    void testBatchAnswersEveryParameterSetInOrder() throws Exception {
+        String body = "{\"searchCourses\": ["
+                + "{\"courseSubject\": \"computer\", \"percentAudited\": 20, \"totalCourseHours\": 700},"
+                + "{\"courseSubject\": \"SCIENCE\", \"percentAudited\": 25, \"totalCourseHours\": 400},"
+                + "{\"courseSubject\": \"computer\", \"percentAudited\": 20, \"totalCourseHours\": 700}],"
+                + "\"recommendCourses\": [{\"age\": 30, \"gender\": 0, \"isBachelorOrHigher\": 1},"
+                + "{\"age\": 25, \"gender\": 1, \"isBachelorOrHigher\": 0}]}";
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(Map.of(
+                "searchCourses", List.of(analyzer.searchCourses("computer", 20, 700),
+                        analyzer.searchCourses("SCIENCE", 25, 400), analyzer.searchCourses("computer", 20, 700)),
+                "recommendCourses", List.of(analyzer.recommendCourses(30, 0, 1), analyzer.recommendCourses(25, 1, 0))),
+                JsonReader.parse(response.body()));
+    }
+
+    @Test
+    void testBadRequestsAreRejected() throws Exception {
+        HttpResponse<String> missing = get("/courses?topK=10");
+        assertEquals(400, missing.statusCode());
+        assertEquals(Map.of("error", "missing parameter by"), JsonReader.parse(missing.body()));
+        assertEquals(400, get("/courses?topK=10&by=nonsense").statusCode());
+        assertEquals(404, get("/courses/extra?topK=10&by=hours").statusCode());
+        assertEquals(405, get("/batch").statusCode());
+        HttpResponse<String> malformed = client.send(HttpRequest.newBuilder(uri("/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"searchCourses\": [")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, malformed.statusCode());
+        for (String batch : new String[] {
+                "{\"recommendCourses\": [{\"age\": 25.7, \"gender\": 1, \"isBachelorOrHigher\": 1}]}",
+                "{\"recommendCourses\": [{\"age\": 1e99, \"gender\": 1, \"isBachelorOrHigher\": 1}]}",
+                "{\"searchCourses\": [{\"courseSubject\": 5, \"percentAudited\": 1, \"totalCourseHours\": 1}]}"}) {
+            HttpResponse<String> rejected = client.send(HttpRequest.newBuilder(uri("/batch"))
+                    .POST(HttpRequest.BodyPublishers.ofString(batch)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, rejected.statusCode(), batch);
+        }
+        HttpResponse<String> deep = client.send(HttpRequest.newBuilder(uri("/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString("[".repeat(1 << 20))).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, deep.statusCode());
+    }
+
+    @Test
+    void testUnexpectedFailuresAnswer500() throws Exception {
+        OnlineCoursesAnalyzer failing = new OnlineCoursesAnalyzer("resources/local.csv") {
+            @Override
+            public List<String> getCourses(int topK, String by) {
+                throw new IllegalStateException("broken");
+            }
+        };
+        try (AnalyzerServer other = AnalyzerServer.start(failing,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            URI courses = URI.create("http://localhost:" + other.address().getPort() + "/courses?topK=1&by=hours");
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(courses).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(500, response.statusCode());
+            assertEquals(Map.of("error", "internal error"), JsonReader.parse(response.body()));
+        }
+    }
+
+    @Test
+    void testJsonReaderLimitsNesting() {
+        String nested = "[".repeat(JsonReader.MAX_DEPTH) + "]".repeat(JsonReader.MAX_DEPTH);
+        assertNotNull(JsonReader.parse(nested));
+        assertThrows(IllegalArgumentException.class, () -> JsonReader.parse("[" + nested + "]"));
+    }
+
+    @Test
+    void testJsonWriterEscapesAndEncodesUtf8() throws IOException {
+        String tricky = "quote \" backslash \\ newline \n tab \t caf\u00e9 \u6570\u636e \ud83d\ude00 \u0001";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter json = new JsonWriter(out)) {
+            json.beginObject().name(tricky).strings(List.of(tricky, "")).name("n").value(3).endObject();
+        }
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertEquals(Map.of(tricky, List.of(tricky, ""), "n", 3.0), JsonReader.parse(text));
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + server.address().getPort() + path);
+    }
+}
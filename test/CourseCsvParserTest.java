@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseCsvParserTest {
+    private static final String PREFIX = "MITx,6.00x,";
+    private static final String TEXT = ",Intro,\"A, B\",CS,";
+
+    @Test
+    void testNumbersMatchJdkParsers() {
+        String[] doubles = {"0", "15.04", "-0.0", "418.94", "1e3", "0.1", "123456789012345.678", "9007199254740993",
+                "0.30000000000000004", ".5", "7."};
+        for (String value : doubles) {
+            CourseTable table = parse(PREFIX + "09/05/2012" + TEXT + "2012,1,-36105,+5,3003," + value
+                    + ",0,0,0,0,0,0,0,0,0,0,0\n");
+            assertEquals(Double.parseDouble(value), table.percentAudited[0], value);
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(value)),
+                    Double.doubleToLongBits(table.percentAudited[0]), value);
+            assertEquals(-36105, table.participants[0]);
+            assertEquals(5, table.audited[0]);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testDatesMatchLenientDateParser() {
+        for (String date : new String[] {"09/05/2012", "1/2/2013", "02/29/2016", "02/30/2015", "12/31/1999", "Jan 5 2014"}) {
+            CourseTable table = parse(PREFIX + date + TEXT + "1,1,1,1,1,0,0,0,0,0,0,0,0,0,0,0,0\n");
+            assertEquals(CourseTable.toEpochDay(new Date(date)), table.launchDay[0], date);
+        }
+    }
+
+    @Test
+    void testQuotedStringsAreDecodedOnce() {
+        String row = PREFIX + "09/05/2012,\"Caf\u00e9 \"\"Intro\"\"\",\"A, B\",\"Science,\nMath\"," + "1,1,1,1,1,0,0,0,0,0,0,0,0,0,0,0,0";
+        CourseTable table = parse(row + "\r\n\n" + row);
+        assertEquals(2, table.size);
+        assertEquals("Caf\u00e9 \"Intro\"", table.titleOf(1));
+        assertEquals("Science,\nMath", table.subjectOf(0));
+        assertEquals(1, table.titles.size());
+        assertEquals(2, table.instructorNames.size());
+        assertSame(table.titleOf(0), table.titleOf(1));
+    }
+
+    private static CourseTable parse(String csv) {
+        ByteBuffer buffer = ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8));
+        CourseTable table = new CourseTable();
+        new CourseCsvParser(buffer, 0, buffer.limit()).parseInto(table);
+        return table;
+    }
+}
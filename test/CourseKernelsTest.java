@@ -0,0 +1,51 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseKernelsTest {
+    private static final CourseKernels SCALAR = CourseKernels.scalar();
+    private static final CourseKernels PREFERRED = CourseKernels.get();
+
+    @Test
+    void testRangeMaskMatchesScalarAtEveryLength() {
+        Random random = new Random(11);
+        for (int n : new int[]{0, 1, 7, 63, 64, 65, 130, 1000}) {
+            double[] audited = randomColumn(random, n);
+            double[] hours = randomColumn(random, n);
+            long[] expected = new long[(n + 63) >>> 6];
+            long[] actual = new long[expected.length];
+            SCALAR.rangeMask(audited, 25, hours, 60, n, expected);
+            PREFERRED.rangeMask(audited, 25, hours, 60, n, actual);
+            assertArrayEquals(expected, actual, "n=" + n);
+            for (int row = 0; row < n; row++) {
+                boolean set = (expected[row >>> 6] & 1L << row) != 0;
+                assertEquals(audited[row] >= 25 && hours[row] <= 60, set);
+            }
+        }
+    }
+
+    @Test
+    void testSquaredDistancesAreBitIdentical() {
+        Random random = new Random(5);
+        int n = 1001;
+        double[] a = randomColumn(random, n);
+        double[] b = randomColumn(random, n);
+        double[] c = randomColumn(random, n);
+        double[] expected = new double[n];
+        double[] actual = new double[n];
+        SCALAR.squaredDistances(a, b, c, 27, 100, 0, n, expected);
+        PREFERRED.squaredDistances(a, b, c, 27, 100, 0, n, actual);
+        assertArrayEquals(expected, actual, 0.0);
+        assertEquals(Math.pow(27 - a[3], 2) + Math.pow(100 - b[3], 2) + Math.pow(0 - c[3], 2), expected[3], 0.0);
+    }
+
+    private static double[] randomColumn(Random random, int n) {
+        double[] column = new double[n];
+        for (int i = 0; i < n; i++) {
+            column[i] = random.nextInt(50) == 0 ? Double.NaN : random.nextDouble() * 100;
+        }
+        return column;
+    }
+}
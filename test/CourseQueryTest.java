@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseQueryTest {
+    private static OnlineCoursesAnalyzer analyzer;
+
+    @BeforeAll
+    static void setUp() {
+        analyzer = new OnlineCoursesAnalyzer("resources/local.csv");
+    }
+
+    @Test
+    void testReproducesParticipantCounts() {
+        List<CourseQuery.Row> byInstitution = analyzer.query()
+                .groupBy(CourseQuery.Key.INSTITUTION)
+                .aggregate(CourseQuery.Aggregate.sum(CourseQuery.Column.PARTICIPANTS))
+                .execute();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        byInstitution.forEach(row -> counts.put((String) row.key(0), (int) row.value(0)));
+        assertEquals(List.copyOf(analyzer.getPtcpCountByInst().entrySet()), List.copyOf(counts.entrySet()));
+
+        List<CourseQuery.Row> bySubject = analyzer.query()
+                .groupBy(CourseQuery.Key.INSTITUTION, CourseQuery.Key.SUBJECT)
+                .aggregate(CourseQuery.Aggregate.sum(CourseQuery.Column.PARTICIPANTS))
+                .orderByValue(0, true)
+                .execute();
+        List<String> keys = bySubject.stream().map(row -> row.key(0) + "-" + row.key(1)).collect(Collectors.toList());
+        assertEquals(new ArrayList<>(analyzer.getPtcpCountByInstAndSubject().keySet()), keys);
+    }
+
+    @Test
+    void testReproducesTopCoursesByHours() {
+        List<String> titles = analyzer.query()
+                .groupBy(CourseQuery.Key.TITLE)
+                .aggregate(CourseQuery.Aggregate.max(CourseQuery.Column.TOTAL_HOURS))
+                .orderByValue(0, true)
+                .limit(10)
+                .execute().stream().map(row -> (String) row.key(0)).collect(Collectors.toList());
+        assertEquals(analyzer.getCourses(10, "hours"), titles);
+    }
+
+    @Test
+    void testFiltersAndAggregatesMatchScan() {
+        CourseTable table = analyzer.current().table;
+        List<CourseQuery.Row> rows = analyzer.query()
+                .where(CourseQuery.Key.SUBJECT, subject -> subject.toLowerCase().contains("science"))
+                .where(CourseQuery.Column.PERCENT_AUDITED, value -> value >= 10)
+                .groupBy(CourseQuery.Key.YEAR)
+                .aggregate(CourseQuery.Aggregate.count(), CourseQuery.Aggregate.avg(CourseQuery.Column.MEDIAN_AGE),
+                        CourseQuery.Aggregate.min(CourseQuery.Column.TOTAL_HOURS),
+                        CourseQuery.Aggregate.median(CourseQuery.Column.PARTICIPANTS))
+                .orderByKey(0, false)
+                .execute();
+        assertFalse(rows.isEmpty());
+        for (CourseQuery.Row row : rows) {
+            int year = (Integer) row.key(0);
+            int[] matching = IntStream.range(0, table.size)
+                    .filter(r -> table.year[r] == year)
+                    .filter(r -> table.subjectOf(r).toLowerCase().contains("science"))
+                    .filter(r -> table.percentAudited[r] >= 10)
+                    .toArray();
+            assertEquals(matching.length, row.value(0));
+            double ageSum = 0;
+            for (int r : matching) {
+                ageSum += table.medianAge[r];
+            }
+            assertEquals(ageSum / matching.length, row.value(1));
+            assertEquals(IntStream.of(matching).mapToDouble(r -> table.totalHours[r]).min().getAsDouble(), row.value(2));
+            int[] participants = IntStream.of(matching).map(r -> table.participants[r]).sorted().toArray();
+            int n = participants.length;
+            double median = n % 2 == 1 ? participants[n / 2] : (participants[n / 2 - 1] + participants[n / 2]) / 2.0;
+            assertEquals(median, row.value(3));
+        }
+    }
+
+    @Test
+    void testGroupsByEachInstructorOfSharedCourses() {
+        Map<String, List<List<String>>> lists = analyzer.getCourseListOfInstructor();
+        List<CourseQuery.Row> rows = analyzer.query()
+                .where(CourseQuery.Key.INSTRUCTOR, name -> name.startsWith("A"))
+                .groupBy(CourseQuery.Key.INSTRUCTOR)
+                .aggregate(CourseQuery.Aggregate.count())
+                .execute();
+        assertFalse(rows.isEmpty());
+        for (CourseQuery.Row row : rows) {
+            String instructor = (String) row.key(0);
+            assertTrue(instructor.startsWith("A"), instructor);
+            List<List<String>> titles = lists.get(instructor);
+            assertTrue(row.value(0) >= titles.get(0).size() + titles.get(1).size(), instructor);
+        }
+    }
+
+    @Test
+    void testInstructorFilterLimitsInstructorGroups() {
+        List<Course> courses = List.of(course("Ann, Bob", 100), course("Bob", 10), course("Ann", 1),
+                course("Cat, Ann, Bob", 1000));
+        List<CourseQuery.Row> rows = new CourseQuery(CourseTable.of(courses))
+                .where(CourseQuery.Key.INSTRUCTOR, "Ann"::equals)
+                .groupBy(CourseQuery.Key.INSTRUCTOR)
+                .aggregate(CourseQuery.Aggregate.count(), CourseQuery.Aggregate.sum(CourseQuery.Column.PARTICIPANTS))
+                .execute();
+        assertEquals(1, rows.size());
+        assertEquals(List.of("Ann"), rows.get(0).keys());
+        assertEquals(3, rows.get(0).value(0));
+        assertEquals(1101, rows.get(0).value(1));
+    }
+
+    private static Course course(String instructors, int participants) {
+        return new Course("MITx", "N1", new Date(0), "Title", instructors, "Subject", 2020, 1, participants, 10, 1,
+                10, 1, 10, 50, 5, 20, 100, 10, 30, 50, 50, 60);
+    }
+}
@@ -0,0 +1,94 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseSnapshotTest {
+
+    @Test
+    void testSnapshotRoundTrip(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("local.csv");
+        Files.copy(Paths.get("resources", "local.csv"), source);
+        Path snapshot = dir.resolve("local.snap");
+
+        OnlineCoursesAnalyzer fromCsv = OnlineCoursesAnalyzer.openWithSnapshot(source.toString(), snapshot.toString());
+        assertTrue(Files.exists(snapshot));
+        CourseTable table = CourseSnapshot.read(snapshot, source);
+        assertNotNull(table);
+        assertEquals(fromCsv.current().table.size, table.size);
+        for (int row = 0; row < table.size; row++) {
+            assertEquals(fromCsv.current().table.titleOf(row), table.titleOf(row));
+            assertEquals(fromCsv.current().table.instructorsOf(row), table.instructorsOf(row));
+            assertEquals(fromCsv.current().table.launchDay[row], table.launchDay[row]);
+            assertEquals(fromCsv.current().table.medianAge[row], table.medianAge[row]);
+        }
+
+        OnlineCoursesAnalyzer fromSnapshot = OnlineCoursesAnalyzer.openWithSnapshot(source.toString(),
+                snapshot.toString());
+        assertEquals(fromCsv.getPtcpCountByInstAndSubject(), fromSnapshot.getPtcpCountByInstAndSubject());
+        assertEquals(fromCsv.getCourseListOfInstructor(), fromSnapshot.getCourseListOfInstructor());
+        assertEquals(fromCsv.getCourses(10, "hours"), fromSnapshot.getCourses(10, "hours"));
+        assertEquals(fromCsv.recommendCourses(30, 0, 1), fromSnapshot.recommendCourses(30, 0, 1));
+    }
+
+    @Test
+    void testStaleOrCorruptSnapshotIsIgnored(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("local.csv");
+        Files.copy(Paths.get("resources", "local.csv"), source);
+        Path snapshot = dir.resolve("local.snap");
+        OnlineCoursesAnalyzer.openWithSnapshot(source.toString(), snapshot.toString());
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+        assertNull(CourseSnapshot.read(snapshot, source));
+
+        OnlineCoursesAnalyzer.openWithSnapshot(source.toString(), snapshot.toString());
+        assertNotNull(CourseSnapshot.read(snapshot, source));
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 0x5a;
+        Files.write(snapshot, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+        assertNull(CourseSnapshot.read(snapshot, source));
+        assertNull(CourseSnapshot.read(dir.resolve("missing.snap"), source));
+    }
+
+    @Test
+    void testWriteSnapshotKeepsTheLoadedVersion(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("local.csv");
+        Files.copy(Paths.get("resources", "local.csv"), source);
+        Path snapshot = dir.resolve("local.snap");
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer(source.toString());
+
+        analyzer.writeSnapshot(source.toString(), snapshot.toString());
+        assertEquals(analyzer.current().table.size, CourseSnapshot.read(snapshot, source).size);
+
+        // the CSV changed after it was parsed, so the snapshot must not claim the new version
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+        analyzer.writeSnapshot(source.toString(), snapshot.toString());
+        assertNull(CourseSnapshot.read(snapshot, source));
+    }
+
+    @Test
+    void testWriteSnapshotRefusedAfterDivergence(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("local.csv");
+        Files.copy(Paths.get("resources", "local.csv"), source);
+        Path snapshot = dir.resolve("local.snap");
+        OnlineCoursesAnalyzer analyzer = OnlineCoursesAnalyzer.openWithSnapshot(source.toString(),
+                snapshot.toString());
+        assertThrows(IllegalStateException.class,
+                () -> analyzer.writeSnapshot(dir.resolve("other.csv").toString(), snapshot.toString()));
+
+        analyzer.addCourse(new Course("MITx", "N1", new Date(0), "Added", "Someone", "Subject", 2020, 1, 100, 10,
+                1, 10, 1, 10, 50, 5, 20, 100, 10, 30, 50, 50, 60));
+        assertThrows(IllegalStateException.class,
+                () -> analyzer.writeSnapshot(source.toString(), snapshot.toString()));
+        assertFalse(OnlineCoursesAnalyzer.openWithSnapshot(source.toString(), snapshot.toString())
+                .searchCourses("", 0, Double.MAX_VALUE).contains("Added"));
+    }
+}
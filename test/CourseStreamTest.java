@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CourseStreamTest {
+    private static final Path LOCAL = Paths.get("resources/local.csv");
+
+    @Test
+    void testSinglePassMatchesAnalyzer() throws IOException {
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer(LOCAL.toString());
+        // batches far smaller than a record force the buffer to grow and records to straddle reads
+        for (int batchBytes : new int[]{64, 4096, CourseStream.DEFAULT_BATCH_BYTES}) {
+            CourseStream stream = new CourseStream(LOCAL, batchBytes);
+            CourseStream.Answer<Map<String, Integer>> byInst = stream.ptcpCountByInst();
+            CourseStream.Answer<Map<String, Integer>> byInstAndSubject = stream.ptcpCountByInstAndSubject();
+            CourseStream.Answer<Map<String, List<List<String>>>> byInstructor = stream.courseListOfInstructor();
+            CourseStream.Answer<List<String>> byHours = stream.courses(10, "hours");
+            CourseStream.Answer<List<String>> byParticipants = stream.courses(15, "participants");
+            CourseStream.Answer<List<String>> search = stream.searchCourses("computer", 20, 700);
+            CourseStream.Answer<List<String>> broadSearch = stream.searchCourses("", 0, Double.MAX_VALUE);
+            CourseStream.Answer<List<String>> recommended = stream.recommendCourses(25, 1, 1);
+            stream.run();
+
+            assertEquals(analyzer.getPtcpCountByInst(), byInst.get());
+            assertEquals(List.copyOf(analyzer.getPtcpCountByInst().keySet()), List.copyOf(byInst.get().keySet()));
+            assertEquals(List.copyOf(analyzer.getPtcpCountByInstAndSubject().entrySet()),
+                    List.copyOf(byInstAndSubject.get().entrySet()));
+            assertEquals(analyzer.getCourseListOfInstructor(), byInstructor.get());
+            assertEquals(analyzer.getCourses(10, "hours"), byHours.get());
+            assertEquals(analyzer.getCourses(15, "participants"), byParticipants.get());
+            assertEquals(analyzer.searchCourses("computer", 20, 700), search.get());
+            assertEquals(analyzer.searchCourses("", 0, Double.MAX_VALUE), broadSearch.get());
+            assertEquals(analyzer.recommendCourses(25, 1, 1), recommended.get());
+        }
+    }
+
+    @Test
+    void testAnswersOnlyAfterRun() throws IOException {
+        CourseStream stream = new CourseStream(LOCAL);
+        CourseStream.Answer<Map<String, Integer>> byInst = stream.ptcpCountByInst();
+        assertThrows(IllegalStateException.class, byInst::get);
+        assertThrows(IllegalArgumentException.class, () -> stream.courses(10, "rating"));
+        stream.run();
+        assertFalse(byInst.get().isEmpty());
+        assertThrows(IllegalStateException.class, stream::run);
+        assertThrows(IllegalStateException.class, stream::ptcpCountByInst);
+    }
+}
@@ -0,0 +1,45 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        long[] values = {0, 1, 127, 128, 129, 255, 256, 1_000_000, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowestValueIn(bucket) <= value, "value " + value);
+            assertTrue(LatencyHistogram.highestValueIn(bucket) >= value, "value " + value);
+        }
+        for (int bucket = 1; bucket < LatencyHistogram.indexOf(Long.MAX_VALUE); bucket++) {
+            assertEquals(LatencyHistogram.highestValueIn(bucket - 1) + 1, LatencyHistogram.lowestValueIn(bucket));
+        }
+    }
+
+    @Test
+    void testPercentilesWithinBucketPrecision() {
+        Random random = new Random(3);
+        long[] values = new long[100_000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[]{50, 90, 99, 99.9, 100}) {
+            long exact = values[(int) Math.ceil(values.length * percentile / 100) - 1];
+            long reported = histogram.percentile(percentile);
+            assertTrue(reported >= exact && reported <= exact + exact / 64 + 1,
+                    percentile + ": exact " + exact + ", reported " + reported);
+        }
+        assertEquals(values.length, histogram.count());
+        assertEquals(values[values.length - 1], histogram.max());
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(99));
+    }
+}
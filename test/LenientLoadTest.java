@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LenientLoadTest {
+
+    @Test
+    void testMalformedRowsAreSkippedAndReported(@TempDir Path dir) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get("resources", "local.csv"), StandardCharsets.UTF_8);
+        String good = lines.get(1);
+        List<String> dirty = new ArrayList<>(lines);
+        dirty.add(3, good.replace(",36105,", ",lots,"));
+        dirty.add(6, "BogusX,1.01x,09/05/2012,Short Row");
+        dirty.add(9, good + ",surplus");
+        dirty.add(12, good.replace("09/05/2012", "yesterday").replace("MITx", "BogusX"));
+        Path file = dir.resolve("dirty.csv");
+        Files.write(file, dirty, StandardCharsets.UTF_8);
+
+        OnlineCoursesAnalyzer lenient = OnlineCoursesAnalyzer.openLenient(file.toString(), Parallelism.sequential(),
+                new AnalyzerMetrics());
+        OnlineCoursesAnalyzer clean = new OnlineCoursesAnalyzer("resources/local.csv", Parallelism.sequential());
+        assertEquals(clean.getPtcpCountByInst(), lenient.getPtcpCountByInst());
+        assertEquals(clean.getCourseListOfInstructor(), lenient.getCourseListOfInstructor());
+        assertEquals(clean.getCourses(10, "hours"), lenient.getCourses(10, "hours"));
+        assertEquals(clean.recommendCourses(25, 1, 1), lenient.recommendCourses(25, 1, 1));
+
+        LoadReport report = lenient.lastLoadReport();
+        assertEquals(lines.size() - 1, report.getRowsLoaded());
+        assertEquals(4, report.getRowsRejected());
+        assertNull(report.getFailure());
+        assertEquals(List.of(4L, 7L, 10L, 13L),
+                report.getRejects().stream().map(LoadReport.Reject::getLine).collect(Collectors.toList()));
+        assertTrue(report.getRejects().get(0).getReason().startsWith("Participants"),
+                report.getRejects().get(0).getReason());
+        assertEquals("expected 23 columns, found 4", report.getRejects().get(1).getReason());
+        assertEquals("expected 23 columns, found 24", report.getRejects().get(2).getReason());
+        assertTrue(report.getRejects().get(3).getReason().startsWith("Launch Date"));
+        assertEquals(dirty.get(6), report.getRejects().get(1).getText());
+        assertEquals(4, lenient.metrics().getRowsRejected());
+
+        assertThrows(NumberFormatException.class, () -> new OnlineCoursesAnalyzer(file.toString()));
+    }
+
+    @Test
+    void testQuotedLineBreaksCountTowardsLineNumbers(@TempDir Path dir) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get("resources", "local.csv"), StandardCharsets.UTF_8);
+        String multiLine = lines.get(1).replace("Circuits and Electronics", "\"Circuits\nand Electronics\"");
+        Path file = dir.resolve("multiline.csv");
+        Files.write(file, List.of(lines.get(0), multiLine, lines.get(2).replace(",62709,", ",,")),
+                StandardCharsets.UTF_8);
+        OnlineCoursesAnalyzer lenient = OnlineCoursesAnalyzer.openLenient(file.toString());
+        LoadReport report = lenient.lastLoadReport();
+        assertEquals(1, report.getRowsLoaded());
+        assertEquals(4, report.getRejects().get(0).getLine());
+    }
+
+    @Test
+    void testFailedReloadKeepsCurrentDataset(@TempDir Path dir) {
+        OnlineCoursesAnalyzer lenient = OnlineCoursesAnalyzer.openLenient("resources/local.csv");
+        List<String> before = lenient.getCourses(10, "hours");
+        LoadReport report = lenient.reload(dir.resolve("missing.csv").toString());
+        assertNotNull(report.getFailure());
+        assertEquals(0, report.getRowsLoaded());
+        assertEquals(before, lenient.getCourses(10, "hours"));
+    }
+
+    @Test
+    void testRejectLogKeepsEarliestRows(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("lines.csv");
+        Files.write(file, "x\n".repeat(500).getBytes(StandardCharsets.UTF_8));
+        RejectLog rejects = new RejectLog(2);
+        rejects.reject(300, "c", "");
+        rejects.reject(100, "a", "");
+        rejects.reject(200, "b", "");
+        assertEquals(3, rejects.count());
+        List<LoadReport.Reject> kept = rejects.resolve(file);
+        assertEquals(List.of("a", "b"), kept.stream().map(LoadReport.Reject::getReason).collect(Collectors.toList()));
+        assertEquals(List.of(51L, 101L), kept.stream().map(LoadReport.Reject::getLine).collect(Collectors.toList()));
+    }
+}
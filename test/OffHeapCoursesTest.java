@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapCoursesTest {
+    private static final String LOCAL = "resources/local.csv";
+
+    @Test
+    void testMappedStoreAnswersLikeAnalyzer(@TempDir Path dir) throws IOException {
+        Path store = dir.resolve("courses.store");
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer(LOCAL);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (Parallelism parallelism : new Parallelism[]{Parallelism.sequential(), Parallelism.using(pool, 1)}) {
+                OffHeapCourses courses = OffHeapCourses.open(LOCAL, store.toString(), parallelism);
+                assertEquals(288, courses.size());
+                assertEquals(analyzer.getPtcpCountByInst(), courses.getPtcpCountByInst());
+                assertEquals(analyzer.getPtcpCountByInstAndSubject(), courses.getPtcpCountByInstAndSubject());
+                assertEquals(analyzer.getCourseListOfInstructor(), courses.getCourseListOfInstructor());
+                assertEquals(analyzer.getCourses(10, "hours"), courses.getCourses(10, "hours"));
+                assertEquals(analyzer.getCourses(15, "participants"), courses.getCourses(15, "participants"));
+                assertEquals(analyzer.searchCourses("computer", 20, 700), courses.searchCourses("computer", 20, 700));
+                assertEquals(analyzer.searchCourses("", 0, Double.MAX_VALUE),
+                        courses.searchCourses("", 0, Double.MAX_VALUE));
+                assertEquals(analyzer.recommendCourses(25, 1, 1), courses.recommendCourses(25, 1, 1));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testStreamedStoreIsAValidSnapshot(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("courses.csv");
+        Files.copy(Path.of(LOCAL), source);
+        Path store = dir.resolve("courses.store");
+        CourseSnapshot.writeFromCsv(source, store);
+
+        CourseTable table = CourseSnapshot.read(store, source);
+        assertNotNull(table);
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer(LOCAL);
+        assertEquals(analyzer.searchCourses("", 0, Double.MAX_VALUE),
+                new OnlineCoursesAnalyzer(table, Parallelism.sequential(), new AnalyzerMetrics())
+                        .searchCourses("", 0, Double.MAX_VALUE));
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count(), "temporary column files are removed");
+        }
+
+        // a changed CSV makes the store stale, and opening rewrites it
+        List<String> lines = new ArrayList<>(Files.readAllLines(source));
+        lines.add(lines.get(1));
+        Files.write(source, lines);
+        assertNull(CourseSnapshot.map(store, source));
+        assertEquals(289, OffHeapCourses.open(source.toString(), store.toString(), Parallelism.sequential()).size());
+    }
+
+    @Test
+    void testConcurrentOpensShareOneStore(@TempDir Path dir) throws Exception {
+        Path store = dir.resolve("courses.store");
+        ExecutorService openers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<OffHeapCourses>> opens = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                opens.add(openers.submit(() -> OffHeapCourses.open(LOCAL, store.toString(), Parallelism.sequential())));
+            }
+            for (Future<OffHeapCourses> open : opens) {
+                assertEquals(288, open.get().size());
+            }
+        } finally {
+            openers.shutdown();
+        }
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of(store), files.collect(Collectors.toList()), "temporary files are removed");
+        }
+    }
+}
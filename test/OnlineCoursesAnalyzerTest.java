@@ -0,0 +1,226 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OnlineCoursesAnalyzerTest {
+    private static OnlineCoursesAnalyzer analyzer;
+
+    @BeforeAll
+    static void setUp() {
+        analyzer = new OnlineCoursesAnalyzer("resources/local.csv");
+    }
+
+    @Test
+    void testGetCoursesByOtherMetrics() {
+        CourseTable table = analyzer.current().table;
+        assertEquals(naiveTopTitles(table, 20, row -> table.certified[row]), analyzer.getCourses(20, "certified"));
+        assertEquals(naiveTopTitles(table, 12, row -> table.percentCertified[row]),
+                analyzer.getCourses(12, "percentCertified"));
+        assertEquals(naiveTopTitles(table, 5, row -> table.medianHoursCertification[row]),
+                analyzer.getCourses(5, "medianHoursCertification"));
+        assertThrows(IllegalArgumentException.class, () -> analyzer.getCourses(10, "rating"));
+    }
+
+    @Test
+    void testSearchCoursesMatchesScan() {
+        CourseTable table = analyzer.current().table;
+        String[] subjects = {"", "computer", "SCIENCE", "history", "no such subject"};
+        double[] audited = {0, 5.5, 20, 25, 100};
+        double[] hours = {0, 50, 400, 700, Double.MAX_VALUE};
+        for (String subject : subjects) {
+            for (double percentAudited : audited) {
+                for (double totalHours : hours) {
+                    List<String> expected = IntStream.range(0, table.size).boxed()
+                            .filter(row -> table.subjectOf(row).toLowerCase().contains(subject.toLowerCase()))
+                            .filter(row -> table.percentAudited[row] >= percentAudited)
+                            .filter(row -> table.totalHours[row] <= totalHours)
+                            .map(table::titleOf)
+                            .sorted()
+                            .distinct()
+                            .collect(Collectors.toList());
+                    assertEquals(expected, analyzer.searchCourses(subject, percentAudited, totalHours),
+                            subject + "/" + percentAudited + "/" + totalHours);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testQueryCacheHitsAndReload() {
+        OnlineCoursesAnalyzer cached = new OnlineCoursesAnalyzer("resources/local.csv");
+        List<String> first = cached.recommendCourses(25, 1, 1);
+        Map<String, Integer> byInst = cached.getPtcpCountByInst();
+        assertEquals(2, cached.cache.missCount());
+        assertSame(first, cached.recommendCourses(25, 1, 1));
+        assertSame(byInst, cached.getPtcpCountByInst());
+        assertEquals(2, cached.cache.hitCount());
+        assertThrows(UnsupportedOperationException.class, () -> first.add("x"));
+
+        cached.reload("resources/local.csv");
+        List<String> reloaded = cached.recommendCourses(25, 1, 1);
+        assertNotSame(first, reloaded);
+        assertEquals(first, reloaded);
+        assertEquals(3, cached.cache.missCount());
+    }
+
+    @Test
+    void testQueryCacheEvictsLeastRecentlyUsed() throws InterruptedException {
+        QueryCache cache = new QueryCache(2);
+        cache.lookup("hot", 0, () -> "hot");
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(1);
+            assertEquals("hot", cache.lookup("hot", 0, () -> "recomputed"));
+            cache.lookup("once" + i, 0, () -> "once");
+        }
+        assertEquals(10, cache.hitCount());
+        assertEquals(11, cache.missCount());
+    }
+
+    @Test
+    void testQueryCacheKeepsOneVersionPerQuery() {
+        QueryCache cache = new QueryCache();
+        assertEquals("v1", cache.memoize("query", 1, () -> "v1"));
+        // a reader that raced the swap to version 2 gets its own result without replacing the newer one
+        assertEquals("v2", cache.memoize("query", 2, () -> "v2"));
+        assertEquals("v1", cache.memoize("query", 1, () -> "v1"));
+        assertEquals("v2", cache.memoize("query", 2, () -> "stale"));
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void testAppendMatchesFullLoad(@TempDir Path dir) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get("resources", "local.csv"), StandardCharsets.UTF_8);
+        Path base = dir.resolve("base.csv");
+        Path delta = dir.resolve("delta.csv");
+        Files.write(base, lines.subList(0, 150), StandardCharsets.UTF_8);
+        List<String> deltaLines = new ArrayList<>(lines.subList(150, lines.size()));
+        deltaLines.add(0, lines.get(0));
+        Files.write(delta, deltaLines, StandardCharsets.UTF_8);
+
+        OnlineCoursesAnalyzer appended = new OnlineCoursesAnalyzer(base.toString());
+        List<String> before = appended.searchCourses("science", 10, 500);
+        appended.append(delta);
+        assertNotEquals(before, appended.searchCourses("science", 10, 500));
+        assertSameAnswers(analyzer, appended);
+    }
+
+    @Test
+    void testParallelAggregationMatchesSequential(@TempDir Path dir) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            OnlineCoursesAnalyzer sequential = new OnlineCoursesAnalyzer("resources/local.csv", Parallelism.sequential());
+            OnlineCoursesAnalyzer parallel = new OnlineCoursesAnalyzer("resources/local.csv", Parallelism.using(pool, 1));
+            assertSameAnswers(sequential, parallel);
+
+            List<String> lines = Files.readAllLines(Paths.get("resources", "local.csv"), StandardCharsets.UTF_8);
+            Path delta = dir.resolve("delta.csv");
+            Files.write(delta, List.of(lines.get(0), lines.get(1), lines.get(200)), StandardCharsets.UTF_8);
+            sequential.append(delta);
+            parallel.append(delta);
+            assertSameAnswers(sequential, parallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testReadersSeeWholeAppendsWhileWriterRuns(@TempDir Path dir) throws Exception {
+        List<String> lines = Files.readAllLines(Paths.get("resources", "local.csv"), StandardCharsets.UTF_8);
+        Path base = dir.resolve("base.csv");
+        Path delta = dir.resolve("delta.csv");
+        Files.write(base, lines.subList(0, 150), StandardCharsets.UTF_8);
+        List<String> deltaLines = new ArrayList<>(lines.subList(150, lines.size()));
+        deltaLines.add(0, lines.get(0));
+        Files.write(delta, deltaLines, StandardCharsets.UTF_8);
+
+        OnlineCoursesAnalyzer shared = new OnlineCoursesAnalyzer(base.toString());
+        CourseDataset original = shared.current();
+        int baseTotal = total(shared.getPtcpCountByInst());
+        int deltaTotal = total(analyzer.getPtcpCountByInst()) - baseTotal;
+        int appends = 20;
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<Integer>> reads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            reads.add(readers.submit(() -> {
+                int checked = 0;
+                do {
+                    int appended = total(shared.getPtcpCountByInst()) - baseTotal;
+                    assertEquals(0, appended % deltaTotal);
+                    assertTrue(appended / deltaTotal <= appends);
+                    assertFalse(shared.recommendCourses(30, checked & 1, 1).isEmpty());
+                    checked++;
+                } while (writing.get());
+                return checked;
+            }));
+        }
+        for (int i = 0; i < appends; i++) {
+            shared.append(delta);
+        }
+        writing.set(false);
+        for (Future<Integer> read : reads) {
+            assertTrue(read.get(30, TimeUnit.SECONDS) > 0);
+        }
+        readers.shutdown();
+
+        assertEquals(baseTotal + appends * deltaTotal, total(shared.getPtcpCountByInst()));
+        assertEquals(149, original.table.size);
+        assertEquals(baseTotal, IntStream.range(0, original.table.size).map(row -> original.table.participants[row]).sum());
+    }
+
+    private static int total(Map<String, Integer> counts) {
+        return counts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private static void assertSameAnswers(OnlineCoursesAnalyzer expected, OnlineCoursesAnalyzer actual) {
+        assertEquals(expected.getPtcpCountByInst(), actual.getPtcpCountByInst());
+        assertEquals(List.copyOf(expected.getPtcpCountByInstAndSubject().entrySet()),
+                List.copyOf(actual.getPtcpCountByInstAndSubject().entrySet()));
+        assertEquals(expected.getCourseListOfInstructor(), actual.getCourseListOfInstructor());
+        for (String by : new String[] {"hours", "participants", "certified"}) {
+            assertEquals(expected.getCourses(15, by), actual.getCourses(15, by));
+        }
+        assertEquals(expected.searchCourses("computer", 20.0, 700), actual.searchCourses("computer", 20.0, 700));
+        assertEquals(expected.searchCourses("", 0, 1000), actual.searchCourses("", 0, 1000));
+        assertEquals(expected.recommendCourses(25, 1, 1), actual.recommendCourses(25, 1, 1));
+        assertEquals(expected.recommendCourses(35, 1, 0), actual.recommendCourses(35, 1, 0));
+    }
+
+    private static List<String> naiveTopTitles(CourseTable table, int topK, RowValue value) {
+        List<String> result = new ArrayList<>();
+        IntStream.range(0, table.size).boxed()
+                .sorted(Comparator.comparingDouble((Integer row) -> value.of(row)).reversed()
+                        .thenComparing(table::titleOf))
+                .map(table::titleOf)
+                .forEach(title -> {
+                    if (result.size() < topK && !result.contains(title)) {
+                        result.add(title);
+                    }
+                });
+        return result;
+    }
+
+    private interface RowValue {
+        double of(int row);
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelCsvLoaderTest {
+    private static final String HEADER = "Institution,Number,Launch Date,Title,Instructors,Subject,Year,"
+            + "Honor,Participants,Audited,Certified,A,B,C,D,E,F,Hours,G,Age,Male,Female,Degree\n";
+    private static final String NUMBERS = ",1,1,100,10,5,1.5,2,3,4,5,6,7.25,8,26,60,40,50";
+
+    @Test
+    void testChunkSizeDoesNotChangeRows() throws IOException {
+        Path csv = Paths.get("resources", "local.csv");
+        List<String> expected = titles(new ParallelCsvLoader().load(csv));
+        assertEquals(288, expected.size());
+        for (long chunkBytes : new long[] {256, 1000, 4096}) {
+            List<String> actual = titles(new ParallelCsvLoader(ForkJoinPool.commonPool(), chunkBytes).load(csv));
+            assertEquals(expected, actual, "chunkBytes=" + chunkBytes);
+        }
+    }
+
+    @Test
+    void testSequentialLoadMatchesParallel() throws IOException {
+        Path csv = Paths.get("resources", "local.csv");
+        List<String> expected = titles(new ParallelCsvLoader().load(csv));
+        for (long chunkBytes : new long[] {256, 4096}) {
+            assertEquals(expected, titles(new ParallelCsvLoader(null, chunkBytes).load(csv)), "chunkBytes=" + chunkBytes);
+        }
+        assertEquals(expected, titles(new ParallelCsvLoader(Parallelism.sequential()).load(csv)));
+    }
+
+    @Test
+    void testQuotedNewlinesStayInsideRecord(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("multiline.csv");
+        String content = HEADER
+                + "MITx,6.00x,09/26/2012,\"Intro\n\"\"Part 1\"\"\",\"A, B\",CS" + NUMBERS + "\r\n"
+                + "HarvardX,CS50x,10/15/2012,\"Second\nline\",C,\"Science,\nMath\"" + NUMBERS + "\n";
+        Files.writeString(csv, content, StandardCharsets.UTF_8);
+        for (long chunkBytes : new long[] {1, 3, 16, 1024}) {
+            CourseTable table = new ParallelCsvLoader(ForkJoinPool.commonPool(), chunkBytes).load(csv);
+            assertEquals(List.of("Intro\n\"Part 1\"", "Second\nline"), titles(table), "chunkBytes=" + chunkBytes);
+            assertEquals("A, B", table.instructorsOf(0));
+            assertEquals("Science,\nMath", table.subjectOf(1));
+            assertEquals(7.25, table.totalHours[1]);
+        }
+    }
+
+    private static List<String> titles(CourseTable table) {
+        return IntStream.range(0, table.size).mapToObj(table::titleOf).collect(Collectors.toList());
+    }
+}
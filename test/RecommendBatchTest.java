@@ -0,0 +1,67 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendBatchTest {
+
+    @Test
+    void testBatchMatchesSingleCalls() {
+        int[] ages = new int[400];
+        int[] genders = new int[ages.length];
+        int[] degrees = new int[ages.length];
+        for (int i = 0; i < ages.length; i++) {
+            // repeats every 200 inputs, so half the batch duplicates the other half
+            ages[i] = 10 + i % 50;
+            genders[i] = i / 50 % 2;
+            degrees[i] = i / 100 % 2;
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Parallelism parallelism : new Parallelism[]{Parallelism.sequential(), Parallelism.using(pool, 1)}) {
+                OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer("resources/local.csv", parallelism);
+                List<List<String>> batch = analyzer.recommendCoursesBatch(ages, genders, degrees);
+                assertEquals(ages.length, batch.size());
+                for (int i = 0; i < ages.length; i++) {
+                    assertEquals(analyzer.recommendCourses(ages[i], genders[i], degrees[i]), batch.get(i), "input " + i);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testCandidatesSpanningScoreBlocks() {
+        Random random = new Random(7);
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 3 * CourseProfileIndex.SCORE_BLOCK; i++) {
+            // 40 titles shared by many numbers, so each candidate's numbers straddle several blocks
+            courses.add(new Course("MITx", "N" + i, new Date(100_000_000L * i), "Title " + random.nextInt(40),
+                    "Someone", "Subject", 1, 1, 100, 10, 1, 10, 1, 10, 50, 5, 20, 100, 10,
+                    20 + random.nextInt(30), random.nextInt(100), 50, random.nextInt(100)));
+        }
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer(CourseTable.of(courses), Parallelism.sequential(),
+                new AnalyzerMetrics());
+        int[] ages = {18, 25, 33, 47, 60};
+        int[] genders = {0, 1, 1, 0, 1};
+        int[] degrees = {1, 0, 1, 1, 0};
+        List<List<String>> batch = analyzer.recommendCoursesBatch(ages, genders, degrees);
+        for (int i = 0; i < ages.length; i++) {
+            assertEquals(analyzer.recommendCourses(ages[i], genders[i], degrees[i]), batch.get(i));
+        }
+    }
+
+    @Test
+    void testEmptyAndMismatchedBatches() {
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer("resources/local.csv", Parallelism.sequential());
+        assertEquals(List.of(), analyzer.recommendCoursesBatch(new int[0], new int[0], new int[0]));
+        assertThrows(IllegalArgumentException.class,
+                () -> analyzer.recommendCoursesBatch(new int[2], new int[1], new int[2]));
+    }
+}
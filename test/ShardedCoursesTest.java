@@ -0,0 +1,131 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedCoursesTest {
+    private static final Path LOCAL = Paths.get("resources/local.csv");
+
+    @Test
+    void testShardsAnswerLikeTheWholeFile(@TempDir Path dir) throws IOException {
+        int shards = split(dir);
+        OnlineCoursesAnalyzer whole = new OnlineCoursesAnalyzer(LOCAL.toString());
+        ShardedCourses sharded = ShardedCourses.open(dir);
+
+        assertEquals(8, shards);
+        assertEquals(shards, sharded.shardCount());
+        assertEquals(List.copyOf(whole.getPtcpCountByInst().entrySet()),
+                List.copyOf(sharded.getPtcpCountByInst(ShardFilter.all()).entrySet()));
+        assertEquals(List.copyOf(whole.getPtcpCountByInstAndSubject().entrySet()),
+                List.copyOf(sharded.getPtcpCountByInstAndSubject(ShardFilter.all()).entrySet()));
+        assertEquals(whole.searchCourses("computer", 20, 700), sharded.searchCourses("computer", 20, 700));
+        assertEquals(whole.searchCourses("", 0, Double.MAX_VALUE), sharded.searchCourses("", 0, Double.MAX_VALUE));
+        assertEquals(whole.getCourseListOfInstructor(), sharded.analyzer().getCourseListOfInstructor());
+    }
+
+    @Test
+    void testFiltersPruneShardsAndRows(@TempDir Path dir) throws IOException {
+        split(dir);
+        ShardedCourses.open(dir, Parallelism.sequential());
+        // the first open wrote statistics for every shard, so this one loads nothing up front
+        ShardedCourses sharded = ShardedCourses.open(dir, Parallelism.sequential());
+        assertEquals(0, sharded.loadedShardCount());
+
+        OnlineCoursesAnalyzer whole = new OnlineCoursesAnalyzer(LOCAL.toString());
+        ShardFilter mitLate = ShardFilter.all().institutions("MITx").years(3, 4);
+        Map<String, Integer> expected = new TreeMap<>();
+        for (CourseQuery.Row row : whole.query()
+                .where(CourseQuery.Key.INSTITUTION, "MITx"::equals)
+                .where(CourseQuery.Column.YEAR, year -> year >= 3)
+                .groupBy(CourseQuery.Key.INSTITUTION, CourseQuery.Key.SUBJECT)
+                .aggregate(CourseQuery.Aggregate.sum(CourseQuery.Column.PARTICIPANTS))
+                .execute()) {
+            expected.put(row.key(0) + "-" + row.key(1), (int) row.value(0));
+        }
+        assertEquals(expected, new TreeMap<>(sharded.getPtcpCountByInstAndSubject(mitLate)));
+        assertEquals(2, sharded.loadedShardCount());
+
+        // a year range that cuts through shards filters their rows
+        Map<String, Integer> early = sharded.getPtcpCountByInst(ShardFilter.all().years(1, 1));
+        assertEquals(4, sharded.loadedShardCount());
+        assertEquals(List.of("HarvardX", "MITx"), List.copyOf(early.keySet()));
+
+        assertEquals(List.of(), sharded.searchCourses(ShardFilter.all().institutions("NoSuchX"), "", 0, 1e9));
+        assertEquals(4, sharded.loadedShardCount());
+    }
+
+    @Test
+    void testNaNValuesDoNotRuleOutAShard() {
+        List<Course> courses = new ArrayList<>();
+        courses.add(course(Double.NaN, Double.NaN));
+        courses.add(course(30, 100));
+        ShardStats stats = ShardStats.of(CourseTable.of(courses));
+        assertTrue(stats.maySatisfySearch("", 20, 200));
+        assertFalse(stats.maySatisfySearch("", 40, 200));
+        assertFalse(stats.maySatisfySearch("", 20, 50));
+    }
+
+    @Test
+    void testConcurrentStatsWritersLeaveOneWholeFile(@TempDir Path dir) throws Exception {
+        Path shard = dir.resolve("local.csv");
+        Files.copy(LOCAL, shard);
+        Path file = dir.resolve("local.csv" + ShardedCourses.STATS_SUFFIX);
+        ShardStats stats = ShardStats.of(new ParallelCsvLoader(Parallelism.sequential()).load(shard));
+        CourseSnapshot.Fingerprint source = CourseSnapshot.Fingerprint.of(shard);
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                writes.add(writers.submit(() -> {
+                    stats.write(file, source);
+                    return null;
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+        assertEquals(288, ShardStats.read(file, shard).rows);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    private static Course course(double percentAudited, double totalHours) {
+        return new Course("MITx", "N1", new Date(0), "Title", "Someone", "Subject", 2020, 1, 100, 10, 1,
+                percentAudited, 1, 10, 50, 5, 20, totalHours, 10, 30, 50, 50, 60);
+    }
+
+    /**
+     * Writes one shard per institution and year of local.csv into {@code dir} and returns how many.
+     */
+    private static int split(Path dir) throws IOException {
+        List<String> lines = Files.readAllLines(LOCAL, StandardCharsets.UTF_8);
+        Map<String, List<String>> byShard = new TreeMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+            byShard.computeIfAbsent(fields[0] + "-" + fields[6], k -> new ArrayList<>(List.of(lines.get(0)))).add(line);
+        }
+        for (Map.Entry<String, List<String>> shard : byShard.entrySet()) {
+            Files.write(dir.resolve(shard.getKey() + ".csv"), shard.getValue(), StandardCharsets.UTF_8);
+        }
+        return byShard.size();
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SketchesTest {
+    private static final Path LOCAL = Paths.get("resources/local.csv");
+
+    @Test
+    void testStreamedSketchesBoundExactAnswers() throws IOException {
+        OnlineCoursesAnalyzer analyzer = new OnlineCoursesAnalyzer(LOCAL.toString());
+        CourseStream stream = new CourseStream(LOCAL, 4096);
+        CourseStream.Answer<CourseSketches> answer = stream.sketches();
+        stream.run();
+        CourseSketches sketches = answer.get();
+
+        Map<String, Integer> exact = analyzer.getPtcpCountByInstAndSubject();
+        List<Estimate> top = sketches.topPtcpCountByInstAndSubject(5);
+        assertEquals(List.copyOf(exact.keySet()).subList(0, 5), top.stream().map(Estimate::getKey).toList());
+        for (Estimate estimate : top) {
+            assertWithin(exact.get(estimate.getKey()), estimate);
+        }
+
+        CourseTable table = new ParallelCsvLoader().load(LOCAL);
+        Map<String, Set<Integer>> names = new HashMap<>();
+        for (int row = 0; row < table.size; row++) {
+            Set<Integer> atInstitution = names.computeIfAbsent(table.institutionOf(row), k -> new HashSet<>());
+            for (int name : table.instructorCodesOf(row)) {
+                atInstitution.add(name);
+            }
+        }
+        Map<String, Estimate> instructors = sketches.distinctInstructorsByInst();
+        assertEquals(List.copyOf(analyzer.getPtcpCountByInst().keySet()), List.copyOf(instructors.keySet()));
+        for (Map.Entry<String, Estimate> entry : instructors.entrySet()) {
+            assertWithin(names.get(entry.getKey()).size(), entry.getValue());
+        }
+
+        assertEquals(top.toString(), CourseSketches.of(table).topPtcpCountByInstAndSubject(5).toString());
+    }
+
+    @Test
+    void testQuantilesAndDistinctCountsOnSyntheticRows() {
+        Random random = new Random(42);
+        CourseTable table = new CourseTable();
+        int rows = 200_000;
+        double[] hours = new double[rows];
+        int[] participants = new int[rows];
+        Set<String> mitInstructors = new HashSet<>();
+        for (int i = 0; i < rows; i++) {
+            int row = table.addRow();
+            String institution = i % 2 == 0 ? "MITx" : "HarvardX";
+            String instructor = "Instructor " + random.nextInt(20_000);
+            if (i % 2 == 0) {
+                mitInstructors.add(instructor);
+            }
+            table.institution[row] = table.institutions.encode(institution);
+            table.subject[row] = table.subjects.encode("Subject " + random.nextInt(500));
+            table.instructors[row] = table.instructorLists.encode(instructor);
+            table.splitInstructors(table.instructors[row]);
+            participants[i] = table.participants[row] = (int) Math.exp(random.nextGaussian() * 2 + 8);
+            hours[i] = table.totalHours[row] = random.nextDouble() * 300;
+        }
+        CourseSketches sketches = CourseSketches.of(table);
+
+        Arrays.sort(hours);
+        Arrays.sort(participants);
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99}) {
+            assertWithin(hours[(int) (q * (rows - 1))], sketches.totalHoursQuantile(q));
+            assertWithin(participants[(int) (q * (rows - 1))], sketches.participantsQuantile(q));
+        }
+        assertTrue(Double.isNaN(sketches.totalHoursQuantile(0.5).getConfidence()));
+        assertWithin(mitInstructors.size(), sketches.distinctInstructorsByInst().get("MITx"));
+    }
+
+    private static void assertWithin(double exact, Estimate estimate) {
+        assertTrue(estimate.getLower() <= exact && exact <= estimate.getUpper(), exact + " outside " + estimate);
+    }
+}
@@ -0,0 +1,35 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TopKTest {
+
+    @Test
+    void testMatchesFullSort() {
+        Random random = new Random(7);
+        int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(100);
+        }
+        TopK topK = new TopK(10, (a, b) -> values[a] != values[b] ? Integer.compare(values[a], values[b])
+                : Integer.compare(a, b));
+        for (int i = 0; i < values.length; i++) {
+            topK.offer(i);
+        }
+        int[] expected = java.util.stream.IntStream.range(0, values.length).boxed()
+                .sorted((a, b) -> values[a] != values[b] ? Integer.compare(values[a], values[b]) : Integer.compare(a, b))
+                .limit(10).mapToInt(Integer::intValue).toArray();
+        assertArrayEquals(expected, topK.toSortedArray());
+    }
+
+    @Test
+    void testFewerCandidatesThanK() {
+        TopK topK = new TopK(5, Integer::compare);
+        topK.offer(3);
+        topK.offer(1);
+        assertEquals("[1, 3]", Arrays.toString(topK.toSortedArray()));
+    }
+}
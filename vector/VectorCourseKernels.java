@@ -0,0 +1,67 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link CourseKernels} on the incubating Vector API. Lives in its own source root because it only compiles
+ * and links with {@code --add-modules jdk.incubator.vector}; {@link CourseKernels#get()} loads it reflectively.
+ */
+class VectorCourseKernels extends CourseKernels {
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  @Override
+  boolean vectorized() {
+    return true;
+  }
+
+  @Override
+  void rangeMask(double[] atLeast, double min, double[] atMost, double max, int n, long[] mask) {
+    int lanes = SPECIES.length();
+    DoubleVector lower = DoubleVector.broadcast(SPECIES, min);
+    DoubleVector upper = DoubleVector.broadcast(SPECIES, max);
+    int full = n & ~63;
+    for (int from = 0; from < full; from += 64) {
+      long bits = 0;
+      for (int offset = 0; offset < 64; offset += lanes) {
+        // GE/LE compare false on NaN, like the scalar >= and <=
+        VectorMask<Double> matches = DoubleVector.fromArray(SPECIES, atLeast, from + offset)
+            .compare(VectorOperators.GE, lower)
+            .and(DoubleVector.fromArray(SPECIES, atMost, from + offset).compare(VectorOperators.LE, upper));
+        bits |= matches.toLong() << offset;
+      }
+      mask[from >>> 6] = bits;
+    }
+    if (full < n) {
+      long bits = 0;
+      for (int row = full; row < n; row++) {
+        if (atLeast[row] >= min && atMost[row] <= max) {
+          bits |= 1L << (row - full);
+        }
+      }
+      mask[full >>> 6] = bits;
+    }
+  }
+
+  @Override
+  void squaredDistances(double[] a, double[] b, double[] c, double x, double y, double z, int n, double[] out) {
+    DoubleVector vx = DoubleVector.broadcast(SPECIES, x);
+    DoubleVector vy = DoubleVector.broadcast(SPECIES, y);
+    DoubleVector vz = DoubleVector.broadcast(SPECIES, z);
+    int upper = SPECIES.loopBound(n);
+    int i = 0;
+    for (; i < upper; i += SPECIES.length()) {
+      // separate mul and add rather than fma, so every lane rounds exactly as the scalar loop does
+      DoubleVector da = vx.sub(DoubleVector.fromArray(SPECIES, a, i));
+      DoubleVector db = vy.sub(DoubleVector.fromArray(SPECIES, b, i));
+      DoubleVector dc = vz.sub(DoubleVector.fromArray(SPECIES, c, i));
+      da.mul(da).add(db.mul(db)).add(dc.mul(dc)).intoArray(out, i);
+    }
+    for (; i < n; i++) {
+      double da = x - a[i];
+      double db = y - b[i];
+      double dc = z - c[i];
+      out[i] = da * da + db * db + dc * dc;
+    }
+  }
+}